@@ -35,6 +35,8 @@ import org.corpus_tools.salt.core.SAnnotation;
     private String edgeType = "ident";
     private int start;
     private int end;
+    private int textSegment;
+    private int textStart;
     public CoNLLCorefMarkable antecedent;
 
     public int getStart() {
@@ -49,6 +51,27 @@ import org.corpus_tools.salt.core.SAnnotation;
         this.text = text;
     }
 
+    /**
+     * Returns the number of the primary text segment, counted from 0, the
+     * markable starts in.
+     */
+    public int getTextSegment() {
+        return textSegment;
+    }
+
+    /**
+     * Returns the offset of the first token of the markable in its primary
+     * text segment.
+     */
+    public int getTextStart() {
+        return textStart;
+    }
+
+    public void setTextStart(int textSegment, int textStart) {
+        this.textSegment = textSegment;
+        this.textStart = textStart;
+    }
+
     public String getGroup() {
         return group;
     }
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.CoNLLModules;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.Compression;
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * The byte range of a document within a CoNLL file containing several
+ * documents, which are started by a comment row like
+ * <code># newdoc id = doc1</code> as in CoNLL-U. The range is passed from the
+ * importer to the mapper as fragment of the resource URI.
+ */
+public class CoNLLDocumentRange {
+	/**
+	 * maximal number of bytes of a comment row inspected for a document id
+	 */
+	private static final int MAX_MARKER_LENGTH = 1024;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final Pattern NEWDOC = Pattern.compile("^#\\s*newdoc(\\s.*|=.*)?$");
+
+	private static final Pattern NEWDOC_ID = Pattern.compile("^#\\s*newdoc\\s+id\\s*=\\s*(.*?)\\s*$");
+
+	private static final Pattern FRAGMENT = Pattern.compile("^(\\d+)-(\\d+)$");
+
+	private final String id;
+
+	private final long start;
+
+	private final long end;
+
+	public CoNLLDocumentRange(String id, long start, long end) {
+		this.id = id;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Returns the id given in the row starting the document, or null if there
+	 * is none.
+	 */
+	public String getId() {
+		return (this.id);
+	}
+
+	/**
+	 * Returns the offset of the first byte of the document.
+	 */
+	public long getStart() {
+		return (this.start);
+	}
+
+	/**
+	 * Returns the offset after the last byte of the document.
+	 */
+	public long getEnd() {
+		return (this.end);
+	}
+
+	/**
+	 * Returns the given URI of the file with this range as fragment.
+	 */
+	public URI toURI(URI fileURI) {
+		return (fileURI.trimFragment().appendFragment(this.start + "-" + this.end));
+	}
+
+	/**
+	 * Returns the range given as fragment of the given URI, or null if there is
+	 * none.
+	 */
+	public static CoNLLDocumentRange fromURI(URI uri) {
+		String fragment = uri.fragment();
+		if (fragment == null)
+			return (null);
+		Matcher matcher = FRAGMENT.matcher(fragment);
+		if (!matcher.matches())
+			return (null);
+		return (new CoNLLDocumentRange(null, Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))));
+	}
+
+	/**
+	 * Returns whether files encoded in the given charset can be scanned, that
+	 * means whether ASCII characters are encoded as single bytes.
+	 */
+	public static boolean isSupported(Charset charset) {
+		return (Arrays.equals(new byte[] { '\n', '#' }, "\n#".getBytes(charset)));
+	}
+
+	/**
+	 * Scans the given file for rows starting a document and returns the ranges
+	 * of all documents. Rows before the first document belong to it. If the
+	 * file does not contain a row starting a document, an empty list is
+	 * returned. The charset has to encode ASCII characters as single bytes.
+	 */
+	public static List<CoNLLDocumentRange> scan(File file, Charset charset) throws IOException {
+		List<Long> starts = new ArrayList<Long>();
+		List<String> ids = new ArrayList<String>();
+		long length = 0;
+		try (InputStream in = Compression.open(file)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			ByteArrayOutputStream comment = new ByteArrayOutputStream();
+			boolean lineStart = true;
+			boolean inComment = false;
+			long lineOffset = 0;
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				// a BOM does not belong to the first row
+				int i = (length == 0 && read >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) ? 3 : 0;
+				for (; i < read; i++) {
+					byte b = buffer[i];
+					if (b == '\n' || b == '\r') {
+						if (inComment)
+							addMarker(comment.toString(charset.name()), lineOffset, starts, ids);
+						inComment = false;
+						lineStart = true;
+						continue;
+					}
+					if (lineStart) {
+						lineStart = false;
+						lineOffset = length + i;
+						inComment = (b == '#');
+						comment.reset();
+					}
+					if (inComment && comment.size() < MAX_MARKER_LENGTH)
+						comment.write(b);
+				}
+				length += read;
+			}
+			if (inComment)
+				addMarker(comment.toString(charset.name()), lineOffset, starts, ids);
+		}
+		List<CoNLLDocumentRange> ranges = new ArrayList<CoNLLDocumentRange>();
+		for (int i = 0; i < starts.size(); i++) {
+			long start = (i == 0) ? 0 : starts.get(i);
+			long end = (i + 1 < starts.size()) ? starts.get(i + 1) : length;
+			ranges.add(new CoNLLDocumentRange(ids.get(i), start, end));
+		}
+		return (ranges);
+	}
+
+	/**
+	 * Adds the given comment row as start of a document, if it is one.
+	 */
+	private static void addMarker(String comment, long offset, List<Long> starts, List<String> ids) {
+		if (!NEWDOC.matcher(comment).matches())
+			return;
+		Matcher matcher = NEWDOC_ID.matcher(comment);
+		String id = (matcher.matches() && !matcher.group(1).isEmpty()) ? matcher.group(1) : null;
+		starts.add(offset);
+		ids.add(id);
+	}
+
+	@Override
+	public String toString() {
+		return (this.id + "[" + this.start + ", " + this.end + ")");
+	}
+}
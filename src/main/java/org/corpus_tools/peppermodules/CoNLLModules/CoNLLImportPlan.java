@@ -0,0 +1,482 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.CoNLLModules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.corpus_tools.peppermodules.conll.Conll2SaltMapper;
+import org.corpus_tools.peppermodules.conll.ConllDataField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link CoNLLImporterProperties} resolved once for an import, so that
+ * mapping a row does not need to access any property. Besides the plain
+ * values, the plan contains the fields to be used for SPOSAnnotations, the
+ * annotation names of all fields and a table of the rules for naming the
+ * FEATS field per POSTAG and CPOSTAG value.
+ * <br/>
+ * A plan is immutable and can be shared by the mappers of all documents.
+ */
+public final class CoNLLImportPlan {
+	private static final Logger logger = LoggerFactory.getLogger(CoNLLImportPlan.class);
+
+	/**
+	 * separator of feature names and values
+	 */
+	private static final String FEATURESEPARATOR = "\\|";
+
+	private static final ConllDataField DEFAULT_SPOS = ConllDataField.POSTAG;
+
+	private final boolean useSLemmaAnnotation;
+	private final ConllDataField firstSPOSField;
+	private final ConllDataField secondSPOSField;
+	private final boolean splitFeatures;
+	private final boolean keyValFeatures;
+	private final String posName;
+	private final String secondPosName;
+	private final String lemmaName;
+	private final String edgeType;
+	private final String enhancedEdgeType;
+	private final String ellipsisAnnoString;
+	private final String ellipsisTokAnno;
+	private final String ellipsisTokAnnoNS;
+	private final String edgeLayer;
+	private final String edgeAnnoName;
+	private final String edgeAnnoNS;
+	private final String metaPrefix;
+	private final String[] sentAnnos;
+	private final String markNamespace;
+	private final String markAnnotation;
+	private final String[] markLabels;
+	private final int grpIdIndex;
+	private final String featuresNamespace;
+	private final String miscNamespace;
+	private final boolean dependenciesHaveLayers;
+	private final boolean splitEnhancedDeprels;
+	private final boolean noDuplicateEdeps;
+	private final boolean considerProjectivity;
+	private final boolean projectiveModeIsType;
+	private final String deprelAtTokenAnnoName;
+	private final String textName;
+	private final boolean importIDs;
+	private final boolean sentence;
+	private final int textSegmentSentences;
+	private final long textSegmentSize;
+
+	/**
+	 * annotation names of the fields, which are not used for SPOSAnnotations
+	 */
+	private final Map<ConllDataField, String> fieldNames = new EnumMap<ConllDataField, String>(ConllDataField.class);
+
+	/**
+	 * rules for naming the FEATS field per POSTAG value
+	 */
+	private final Map<String, FeatureRule> postagRules = new HashMap<String, FeatureRule>();
+
+	/**
+	 * rules for naming the FEATS field per CPOSTAG value
+	 */
+	private final Map<String, FeatureRule> cpostagRules = new HashMap<String, FeatureRule>();
+
+	/**
+	 * rule for naming the FEATS field, if neither POSTAG nor CPOSTAG value
+	 * have one
+	 */
+	private final FeatureRule defaultRule;
+
+	/**
+	 * Resolves the given properties.
+	 */
+	public CoNLLImportPlan(CoNLLImporterProperties properties) {
+		Properties props = properties.getProperties();
+		this.useSLemmaAnnotation = resolveUseSLemmaAnnotation(properties);
+		ConllDataField[] sposFields = resolveSPOSFields(properties);
+		this.firstSPOSField = sposFields[0];
+		this.secondSPOSField = sposFields[1];
+		this.splitFeatures = (Boolean) properties.getProperty(CoNLLImporterProperties.PROP_SPLIT_FEATURES).getValue();
+		this.keyValFeatures = (Boolean) properties.getProperty(CoNLLImporterProperties.PROP_KEYVAL_FEATURES).getValue();
+		this.posName = props.getProperty(CoNLLImporterProperties.PROP_POS_NAME, "");
+		this.secondPosName = props.getProperty(CoNLLImporterProperties.PROP_SECOND_POS_NAME, "");
+		this.lemmaName = props.getProperty(CoNLLImporterProperties.PROP_LEMMA_NAME, "");
+		this.edgeType = props.getProperty(CoNLLImporterProperties.PROP_EDGETYPE_NAME, "dep");
+		this.enhancedEdgeType = properties.getEnhancedEdgeType();
+		this.ellipsisAnnoString = properties.getEllipsisAnno();
+		if (this.ellipsisAnnoString == null) {
+			this.ellipsisTokAnno = null;
+			this.ellipsisTokAnnoNS = null;
+		} else if (this.ellipsisAnnoString.contains(":")) {
+			String[] parts = this.ellipsisAnnoString.split(":", 2);
+			this.ellipsisTokAnnoNS = parts[0];
+			this.ellipsisTokAnno = parts[1];
+		} else {
+			this.ellipsisTokAnnoNS = null;
+			this.ellipsisTokAnno = this.ellipsisAnnoString;
+		}
+		this.edgeLayer = props.getProperty(CoNLLImporterProperties.PROP_EDGELAYER_NAME, "dep");
+		this.edgeAnnoName = props.getProperty(CoNLLImporterProperties.PROP_EDGEANNO_NAME, "deprel");
+		this.edgeAnnoNS = props.getProperty(CoNLLImporterProperties.PROP_EDGEANNO_NS, "dep");
+		this.metaPrefix = props.getProperty(CoNLLImporterProperties.META_PREFIX, "meta_");
+		this.sentAnnos = properties.getSentAnnos();
+		this.markNamespace = props.getProperty(CoNLLImporterProperties.MARK_NS, null);
+		this.markAnnotation = props.getProperty(CoNLLImporterProperties.MARK_ANNO, null);
+		this.markLabels = properties.getMarkLabels();
+		this.grpIdIndex = (this.markLabels == null) ? -1 : Arrays.asList(this.markLabels).indexOf("GRP");
+		this.featuresNamespace = props.getProperty(CoNLLImporterProperties.PROP_FEATURES_NAMESPACE, null);
+		this.miscNamespace = props.getProperty(CoNLLImporterProperties.PROP_MISC_NAMESPACE, null);
+		this.dependenciesHaveLayers = properties.dependenciesHaveLayers();
+		this.splitEnhancedDeprels = properties.splitEnhancedDeprels();
+		this.noDuplicateEdeps = properties.noDuplicateEdeps();
+		this.considerProjectivity = (Boolean) properties.getProperty(CoNLLImporterProperties.PROP_CONSIDER_PROJECTIVITY).getValue();
+		this.projectiveModeIsType = !props.getProperty(CoNLLImporterProperties.PROP_PROJECTIVE_MODE, Conll2SaltMapper.TYPE).equalsIgnoreCase(Conll2SaltMapper.NAMESPACE);
+		this.deprelAtTokenAnnoName = properties.getDeprelTokenAnnoName();
+		this.textName = properties.getTextName();
+		this.importIDs = properties.importIDs();
+		this.sentence = properties.isSentence();
+		this.textSegmentSentences = properties.getTextSegmentSentences();
+		this.textSegmentSize = properties.getTextSegmentSize();
+
+		for (ConllDataField field : ConllDataField.values()) {
+			// use user specified name for field, or default: the field's
+			// CoNLL name
+			this.fieldNames.put(field, props.getProperty(field.getPropertyKey_Name(), field.name()));
+		}
+		// only rules given explicitly are regarded for POSTAG and CPOSTAG
+		// values, the default rule may be a default value
+		for (Object key : props.keySet()) {
+			String name = key.toString();
+			if (name.startsWith(CoNLLImporterProperties.PROP_FIELD6_POSTAG)) {
+				this.postagRules.put(name.substring(CoNLLImporterProperties.PROP_FIELD6_POSTAG.length()), new FeatureRule(props.getProperty(name, Conll2SaltMapper.DEFAULT_FEATURE), false));
+			} else if (name.startsWith(CoNLLImporterProperties.PROP_FIELD6_CPOSTAG)) {
+				this.cpostagRules.put(name.substring(CoNLLImporterProperties.PROP_FIELD6_CPOSTAG.length()), new FeatureRule(props.getProperty(name, Conll2SaltMapper.DEFAULT_FEATURE), false));
+			}
+		}
+		this.defaultRule = new FeatureRule(props.getProperty(CoNLLImporterProperties.PROP_FIELD6_DEFAULT, Conll2SaltMapper.DEFAULT_FEATURE), true);
+	}
+
+	// retrieves whether or not to use SLemmaAnnoations
+	private static boolean resolveUseSLemmaAnnotation(CoNLLImporterProperties properties) {
+		String propVal = (String) properties.getProperty(CoNLLImporterProperties.PROP_SLEMMA).getValue();
+		if (propVal.equals(CoNLLImporterProperties.PROPERTYVAL_LEMMA))
+			return true;
+		if (propVal.equals(CoNLLImporterProperties.PROPERTYVAL_NONE))
+			return false;
+		logger.warn(String.format("Invalid value '%s' for property '%s'. Default value '%s' is used.", propVal, CoNLLImporterProperties.PROP_SLEMMA, CoNLLImporterProperties.PROPERTYVAL_LEMMA));
+		return CoNLLImporterProperties.defaultUseSLemmaAnnoation;
+	}
+
+	// retrieves the fields to be used for SPOSAnnotations, first the
+	// preferred, then the alternative one
+	private static ConllDataField[] resolveSPOSFields(CoNLLImporterProperties properties) {
+		ConllDataField firstSPOSField = null;
+		ConllDataField secondSPOSField = null;
+
+		if (properties.getProperty(CoNLLImporterProperties.PROP_SPOS) == null) {
+			if (CoNLLImporterProperties.defaultUseSPOSAnnoation) {
+				firstSPOSField = DEFAULT_SPOS;
+			}
+			return new ConllDataField[] { firstSPOSField, secondSPOSField };
+		}
+		String propVal = (String) properties.getProperty(CoNLLImporterProperties.PROP_SPOS).getValue();
+		String[] propVals = propVal.split(",");
+
+		if (propVals.length > 2) {
+			logger.warn(String.format("Found '%s' for property '%s'. Only two values are regarded, the rest will be ignored.", propVal, CoNLLImporterProperties.PROP_SPOS));
+		}
+
+		if ((propVals.length > 1) && (propVals[0].equals(CoNLLImporterProperties.PROPERTYVAL_NONE))) {
+			logger.warn(String.format("Found '%s' for property '%s'. With this setting, no SPOSAnnotation will ever be created.", propVal, CoNLLImporterProperties.PROP_SPOS));
+		}
+
+		String val = propVals[0].trim();
+		if (val.equals(CoNLLImporterProperties.PROPERTYVAL_NONE)) {
+			return new ConllDataField[] { null, null };
+		} else if ((val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) || (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG))) {
+			if (val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) {
+				firstSPOSField = ConllDataField.POSTAG;
+			} else if (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG)) {
+				firstSPOSField = ConllDataField.CPOSTAG;
+			}
+		} else {
+			if (propVals.length == 1) {
+				logger.warn(String.format("Invalid value '%s' for property '%s'. Using default value.", val, CoNLLImporterProperties.PROP_SPOS));
+				firstSPOSField = DEFAULT_SPOS;
+			} else {
+				logger.warn(String.format("Invalid value '%s' for property '%s'. Using alternative value.", val, CoNLLImporterProperties.PROP_SPOS));
+			}
+		}
+
+		if (propVals.length >= 2) {
+			val = propVals[1].trim();
+			if (val.equals(CoNLLImporterProperties.PROPERTYVAL_NONE)) {
+			} else if ((val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) || (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG))) {
+				ConllDataField field = null;
+				if (val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) {
+					field = ConllDataField.POSTAG;
+				} else if (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG)) {
+					field = ConllDataField.CPOSTAG;
+				}
+
+				if (firstSPOSField == null) {
+					firstSPOSField = field;
+				} else {
+					secondSPOSField = field;
+				}
+			} else {
+				if (firstSPOSField == null) {
+					logger.warn(String.format("Invalid alternative value '%s' for property '%s'. Using default value.", val, CoNLLImporterProperties.PROP_SPOS));
+					firstSPOSField = DEFAULT_SPOS;
+				} else {
+					logger.warn(String.format("Invalid alternative value '%s' for property '%s'.", val, CoNLLImporterProperties.PROP_SPOS));
+				}
+			}
+		}
+
+		return new ConllDataField[] { firstSPOSField, secondSPOSField };
+	}
+
+	/**
+	 * Returns the rule for naming the FEATS field of a row with the given
+	 * POSTAG and CPOSTAG values. A rule for the POSTAG (fine grained) value
+	 * gets priority over one for the CPOSTAG (coarse grained) value, if
+	 * neither one is defined, the default rule is returned.
+	 */
+	public FeatureRule getFeatureRule(String postag, String cpostag) {
+		FeatureRule rule = this.postagRules.get(String.valueOf(postag));
+		if (rule == null)
+			rule = this.cpostagRules.get(String.valueOf(cpostag));
+		return (rule == null ? this.defaultRule : rule);
+	}
+
+	/**
+	 * Returns the annotation name of the given field.
+	 */
+	public String getFieldName(ConllDataField field) {
+		return (this.fieldNames.get(field));
+	}
+
+	public boolean useSLemmaAnnotation() {
+		return (this.useSLemmaAnnotation);
+	}
+
+	public boolean useSPOSAnnotation() {
+		return (this.firstSPOSField != null);
+	}
+
+	/**
+	 * Returns the field preferably used for SPOSAnnotations, or null if none
+	 * are created.
+	 */
+	public ConllDataField getFirstSPOSField() {
+		return (this.firstSPOSField);
+	}
+
+	/**
+	 * Returns the field used for SPOSAnnotations, if the first one is empty,
+	 * or null.
+	 */
+	public ConllDataField getSecondSPOSField() {
+		return (this.secondSPOSField);
+	}
+
+	public boolean isSplitFeatures() {
+		return (this.splitFeatures);
+	}
+
+	public boolean isKeyValFeatures() {
+		return (this.keyValFeatures);
+	}
+
+	public String getPosName() {
+		return (this.posName);
+	}
+
+	public String getSecondPosName() {
+		return (this.secondPosName);
+	}
+
+	public String getLemmaName() {
+		return (this.lemmaName);
+	}
+
+	public String getEdgeType() {
+		return (this.edgeType);
+	}
+
+	public String getEnhancedEdgeType() {
+		return (this.enhancedEdgeType);
+	}
+
+	public String getEllipsisAnno() {
+		return (this.ellipsisAnnoString);
+	}
+
+	public String getEllipsisTokAnno() {
+		return (this.ellipsisTokAnno);
+	}
+
+	public String getEllipsisTokAnnoNS() {
+		return (this.ellipsisTokAnnoNS);
+	}
+
+	public String getEdgeLayer() {
+		return (this.edgeLayer);
+	}
+
+	public String getEdgeAnnoName() {
+		return (this.edgeAnnoName);
+	}
+
+	public String getEdgeAnnoNS() {
+		return (this.edgeAnnoNS);
+	}
+
+	public String getMetaPrefix() {
+		return (this.metaPrefix);
+	}
+
+	/**
+	 * Returns a copy of the sentence annotations to be imported, or null for
+	 * all.
+	 */
+	public String[] getSentAnnos() {
+		return (this.sentAnnos == null ? null : this.sentAnnos.clone());
+	}
+
+	public String getMarkNamespace() {
+		return (this.markNamespace);
+	}
+
+	public String getMarkAnnotation() {
+		return (this.markAnnotation);
+	}
+
+	/**
+	 * Returns a copy of the labels of markable annotations, or null.
+	 */
+	public String[] getMarkLabels() {
+		return (this.markLabels == null ? null : this.markLabels.clone());
+	}
+
+	/**
+	 * Returns the position of the coref group identifier in markable
+	 * annotations, or -1.
+	 */
+	public int getGrpIdIndex() {
+		return (this.grpIdIndex);
+	}
+
+	public String getFeaturesNamespace() {
+		return (this.featuresNamespace);
+	}
+
+	public String getMiscNamespace() {
+		return (this.miscNamespace);
+	}
+
+	public boolean dependenciesHaveLayers() {
+		return (this.dependenciesHaveLayers);
+	}
+
+	public boolean splitEnhancedDeprels() {
+		return (this.splitEnhancedDeprels);
+	}
+
+	public boolean noDuplicateEdeps() {
+		return (this.noDuplicateEdeps);
+	}
+
+	public boolean considerProjectivity() {
+		return (this.considerProjectivity);
+	}
+
+	public boolean projectiveModeIsType() {
+		return (this.projectiveModeIsType);
+	}
+
+	public String getDeprelTokenAnnoName() {
+		return (this.deprelAtTokenAnnoName);
+	}
+
+	public String getTextName() {
+		return (this.textName);
+	}
+
+	public boolean importIDs() {
+		return (this.importIDs);
+	}
+
+	public boolean isSentence() {
+		return (this.sentence);
+	}
+
+	public int getTextSegmentSentences() {
+		return (this.textSegmentSentences);
+	}
+
+	public long getTextSegmentSize() {
+		return (this.textSegmentSize);
+	}
+
+	/**
+	 * The names of the annotations created for the FEATS field of a row.
+	 */
+	public static final class FeatureRule {
+		private final String key;
+
+		private final List<String> keys;
+
+		private final boolean split;
+
+		private FeatureRule(String key, boolean isDefault) {
+			this.key = key;
+			this.keys = Collections.unmodifiableList(Arrays.asList(key.split(FEATURESEPARATOR)));
+			// the default rule splits only into several names
+			this.split = !isDefault || this.keys.size() > 1;
+		}
+
+		/**
+		 * Returns the name of the annotation for the whole FEATS field.
+		 */
+		public String getKey() {
+			return (this.key);
+		}
+
+		/**
+		 * Returns the names of the annotations for the pipe separated values
+		 * of the FEATS field.
+		 */
+		public List<String> getKeys() {
+			return (this.keys);
+		}
+
+		/**
+		 * Returns whether the FEATS field is split into its pipe separated
+		 * values, if splitting is enabled.
+		 */
+		public boolean isSplit() {
+			return (this.split);
+		}
+	}
+}
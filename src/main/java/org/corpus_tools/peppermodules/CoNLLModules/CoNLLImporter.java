@@ -17,13 +17,32 @@
  */
 package org.corpus_tools.peppermodules.CoNLLModules;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
 import org.corpus_tools.pepper.impl.PepperImporterImpl;
 import org.corpus_tools.pepper.modules.PepperImporter;
 import org.corpus_tools.pepper.modules.PepperMapper;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.peppermodules.conll.Conll2SaltMapper;
+import org.corpus_tools.peppermodules.conll.StringPool;
+import org.corpus_tools.peppermodules.conll.tupleconnector.Compression;
+import org.corpus_tools.peppermodules.conll.tupleconnector.impl.TupleIndex;
+import org.corpus_tools.salt.common.SCorpus;
+import org.corpus_tools.salt.common.SCorpusGraph;
+import org.corpus_tools.salt.common.SDocument;
 import org.corpus_tools.salt.graph.Identifier;
 import org.eclipse.emf.common.util.URI;
 import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Component(name = "CoNLLImporterComponent", factory = "PepperImporterComponentFactory")
 public class CoNLLImporter extends PepperImporterImpl implements PepperImporter {
@@ -31,8 +50,25 @@ public class CoNLLImporter extends PepperImporterImpl implements PepperImporter
 	public static final String NAME = "CoNLLImporter";
 	public static final String FORMATNAME = "CoNLL";
 	public static final String FORMATVERSION = "1.0"; // TODO: What version?
+	private static final Logger logger = LoggerFactory.getLogger(CoNLLImporter.class);
 	// -------------------------------------------------------------------------
 
+	/**
+	 * the properties resolved for the mappers of all documents
+	 */
+	private CoNLLImportPlan importPlan = null;
+
+	/**
+	 * the property values {@link #importPlan} has been resolved from
+	 */
+	private Properties importPlanKey = null;
+
+	/**
+	 * annotation names and values shared by the mappers of all documents, or
+	 * null if pooling is disabled
+	 */
+	private StringPool stringPool = null;
+
 	public CoNLLImporter() {
 		super();
 		// setting name of module
@@ -53,6 +89,169 @@ public class CoNLLImporter extends PepperImporterImpl implements PepperImporter
 	@Override
 	public PepperMapper createPepperMapper(Identifier sElementId) {
 		Conll2SaltMapper mapper = new Conll2SaltMapper();
+		mapper.setImportPlan(getImportPlan());
+		mapper.setStringPool(getStringPool());
 		return (mapper);
 	}
+
+	/**
+	 * Returns the pool of annotation names and values shared by all mappers,
+	 * or null if {@link CoNLLImporterProperties#PROP_STRING_POOL_SIZE} is 0.
+	 */
+	public synchronized StringPool getStringPool() {
+		int size = ((CoNLLImporterProperties) getProperties()).getStringPoolSize();
+		if (size <= 0)
+			return (null);
+		if (this.stringPool == null || this.stringPool.getCapacity() != size)
+			this.stringPool = new StringPool(size);
+		return (this.stringPool);
+	}
+
+	/**
+	 * Logs the statistics of the string pool, if any.
+	 */
+	@Override
+	public void end() {
+		super.end();
+		if (this.stringPool != null)
+			logger.info("String pool of " + getName() + ": " + this.stringPool);
+	}
+
+	/**
+	 * Returns the properties resolved for the mappers, see
+	 * {@link CoNLLImportPlan}. The plan is resolved once and shared by all
+	 * mappers, it is resolved again only if the property values have changed
+	 * since.
+	 */
+	public synchronized CoNLLImportPlan getImportPlan() {
+		Properties key = new Properties();
+		key.putAll(getProperties().getProperties());
+		if (this.importPlan == null || !key.equals(this.importPlanKey)) {
+			this.importPlan = new CoNLLImportPlan((CoNLLImporterProperties) getProperties());
+			this.importPlanKey = key;
+		}
+		return (this.importPlan);
+	}
+
+	/**
+	 * Imports the corpus structure as done by the default implementation and
+	 * afterwards removes documents for index files and the suffix of the
+	 * compression format from the names of documents read from compressed
+	 * files. If {@link CoNLLImporterProperties#PROP_SPLIT_NEWDOC} is set,
+	 * files containing several documents are split at last.
+	 */
+	@Override
+	public void importCorpusStructure(SCorpusGraph corpusGraph) {
+		super.importCorpusStructure(corpusGraph);
+		removeIndexFiles(corpusGraph);
+		trimCompressionSuffixes(corpusGraph);
+		if (((CoNLLImporterProperties) getProperties()).isSplitNewdoc())
+			splitDocuments(corpusGraph);
+	}
+
+	/**
+	 * Removes the documents created for the index files, which the tuple
+	 * reader stores next to the input files, and for temporary files left
+	 * from building them, see {@link TupleIndex}.
+	 */
+	protected void removeIndexFiles(SCorpusGraph corpusGraph) {
+		Map<Identifier, URI> identifier2Resource = getIdentifier2ResourceTable();
+		for (Map.Entry<Identifier, URI> entry : new ArrayList<Map.Entry<Identifier, URI>>(identifier2Resource.entrySet())) {
+			URI resource = entry.getValue();
+			String fileName = (resource == null) ? null : resource.lastSegment();
+			if (fileName == null || !TupleIndex.isIndexFileName(fileName) || !(entry.getKey().getIdentifiableElement() instanceof SDocument))
+				continue;
+			corpusGraph.removeNode((SDocument) entry.getKey().getIdentifiableElement());
+			identifier2Resource.remove(entry.getKey());
+		}
+	}
+
+	/**
+	 * Documents are named after their files without extension, so a document
+	 * read from 'doc.conll.gz' would be named 'doc.conll'. Such documents are
+	 * replaced by documents named 'doc', unless the parent corpus already
+	 * contains a document of that name.
+	 */
+	protected void trimCompressionSuffixes(SCorpusGraph corpusGraph) {
+		Map<Identifier, URI> identifier2Resource = getIdentifier2ResourceTable();
+		for (Map.Entry<Identifier, URI> entry : new ArrayList<Map.Entry<Identifier, URI>>(identifier2Resource.entrySet())) {
+			URI resource = entry.getValue();
+			String fileName = (resource == null) ? null : resource.lastSegment();
+			Compression compression = (fileName == null) ? null : Compression.forFileName(fileName);
+			if (compression == null || !(entry.getKey().getIdentifiableElement() instanceof SDocument))
+				continue;
+			SDocument document = (SDocument) entry.getKey().getIdentifiableElement();
+			SCorpus corpus = corpusGraph.getCorpus(document);
+			String name = fileName.substring(0, fileName.length() - compression.getSuffix().length() - 1);
+			if (name.lastIndexOf('.') > 0)
+				name = name.substring(0, name.lastIndexOf('.'));
+			if (corpus == null || name.isEmpty() || name.equals(document.getName()) || corpusGraph.getNode(corpus.getId() + "/" + name) != null)
+				continue;
+			SDocument renamed = corpusGraph.createDocument(corpus, name);
+			corpusGraph.removeNode(document);
+			identifier2Resource.remove(entry.getKey());
+			identifier2Resource.put(renamed.getIdentifier(), resource);
+		}
+	}
+
+	/**
+	 * Replaces each document, whose file contains several documents started
+	 * by '# newdoc' comment rows, by a corpus of the same name containing one
+	 * document per comment row. The documents are named after the ids given
+	 * in the comment rows and refer to their byte range of the file, see
+	 * {@link CoNLLDocumentRange}, so that each mapper reads only its own part
+	 * of the file. Compressed files are not split, since each document would
+	 * have to decompress the file up to its start.
+	 */
+	protected void splitDocuments(SCorpusGraph corpusGraph) {
+		String encoding = ((CoNLLImporterProperties) getProperties()).getEncoding();
+		Charset charset;
+		try {
+			charset = (encoding == null) ? Charset.forName("UTF-8") : Charset.forName(encoding);
+		} catch (IllegalArgumentException e) {
+			throw new PepperModuleException(this, "Cannot split files into documents, since the encoding '" + encoding + "' is not supported. ", e);
+		}
+		if (!CoNLLDocumentRange.isSupported(charset)) {
+			logger.warn("Cannot split files encoded in " + charset.name() + " into documents, since ASCII characters are not encoded as single bytes.");
+			return;
+		}
+		Map<Identifier, URI> identifier2Resource = getIdentifier2ResourceTable();
+		for (Map.Entry<Identifier, URI> entry : new ArrayList<Map.Entry<Identifier, URI>>(identifier2Resource.entrySet())) {
+			URI resource = entry.getValue();
+			if (resource == null || !resource.isFile() || !(entry.getKey().getIdentifiableElement() instanceof SDocument))
+				continue;
+			SDocument document = (SDocument) entry.getKey().getIdentifiableElement();
+			SCorpus parent = corpusGraph.getCorpus(document);
+			if (parent == null)
+				continue;
+			File file = new File(resource.toFileString());
+			List<CoNLLDocumentRange> ranges;
+			try {
+				// a compressed file would be decompressed from its start for each document
+				if (Compression.detect(file) != null) {
+					logger.warn("Cannot split the compressed file '" + resource + "' into documents, it is imported as one document.");
+					continue;
+				}
+				ranges = CoNLLDocumentRange.scan(file, charset);
+			} catch (IOException e) {
+				throw new PepperModuleException(this, "Cannot read file '" + resource + "' to split it into documents. ", e);
+			}
+			if (ranges.isEmpty())
+				continue;
+			String name = document.getName();
+			corpusGraph.removeNode(document);
+			identifier2Resource.remove(entry.getKey());
+			SCorpus corpus = corpusGraph.createCorpus(parent, name);
+			Set<String> names = new HashSet<String>();
+			for (int i = 0; i < ranges.size(); i++) {
+				CoNLLDocumentRange range = ranges.get(i);
+				String documentName = (range.getId() == null) ? "" : range.getId().replaceAll("[^A-Za-z0-9_.-]", "_");
+				if (documentName.isEmpty() || names.contains(documentName))
+					documentName = name + "_" + (i + 1);
+				names.add(documentName);
+				SDocument part = corpusGraph.createDocument(corpus, documentName);
+				identifier2Resource.put(part.getIdentifier(), range.toURI(resource));
+			}
+		}
+	}
 }
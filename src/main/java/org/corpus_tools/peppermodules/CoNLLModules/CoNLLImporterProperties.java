@@ -110,6 +110,30 @@ public class CoNLLImporterProperties extends PepperModuleProperties {
 	
 	/** Additionally import deprel as token annotation */
 	public static final String PROP_DEPREL_AT_TOKEN = PREFIX + "deprel.at.token";
+	
+	/** Encoding of the input files. Default: UTF-8 */
+	public static final String PROP_ENCODING = PREFIX + "encoding";
+
+	/** Number of sentences read ahead by a background thread, 0 disables reading ahead. Default: 0 */
+	public static final String PROP_PREFETCH = PREFIX + "prefetch";
+
+	/** Whether a file is split into one document per '# newdoc' comment. Default: false */
+	public static final String PROP_SPLIT_NEWDOC = PREFIX + "split.newdoc";
+
+	/** Number of chunks of a file tokenized in parallel, 0 tokenizes the file sequentially. Default: 0 */
+	public static final String PROP_PARALLEL_CHUNKS = PREFIX + "parallel.chunks";
+
+	/** Number of sentences after which a new primary text is started, 0 for a single text. Default: 0 */
+	public static final String PROP_TEXT_SEGMENT_SENTENCES = PREFIX + "text.segment.sentences";
+
+	/** Size of a primary text in megabytes (2^20 characters) after which a new primary text is started, 0 for no limit. Default: 0 */
+	public static final String PROP_TEXT_SEGMENT_SIZE = PREFIX + "text.segment.size";
+
+	/** Maximal number of distinct annotation names and values pooled for all documents, 0 disables pooling. Default: 0 */
+	public static final String PROP_STRING_POOL_SIZE = PREFIX + "string.pool.size";
+
+	/** Maximal number of sentences of a document mapped ahead in parallel, 0 maps the sentences sequentially. Default: 0 */
+	public static final String PROP_PARALLEL_SENTENCES = PREFIX + "parallel.sentences";
         
 	public CoNLLImporterProperties() {
 		this.addProperty(new PepperModuleProperty<String>(PROP_SPOS, String.class,
@@ -227,6 +251,54 @@ public class CoNLLImporterProperties extends PepperModuleProperties {
 				.withType(String.class)
 				.withDescription("If an annotation name is provided, the dependency relation of a token will be annotated additionally at the token directly using the provided annotation name.")
 				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_ENCODING)
+				.withType(String.class)
+				.withDescription("Encoding of the input files, e.g. ISO-8859-1 for legacy treebanks. Default: UTF-8")
+				.withDefaultValue("UTF-8")
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_PREFETCH)
+				.withType(Integer.class)
+				.withDescription("Number of sentences read ahead by a background thread while the previous ones are mapped, which limits the memory used for reading ahead. 0 disables reading ahead. Default: 0")
+				.withDefaultValue(0)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_SPLIT_NEWDOC)
+				.withType(Boolean.class)
+				.withDescription("Whether a file containing several documents, each started by a comment row like '# newdoc id = doc1', is imported as a corpus with one document per comment row. The documents are mapped in parallel, each reading only its own part of the file. Default: false")
+				.withDefaultValue(false)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_PARALLEL_CHUNKS)
+				.withType(Integer.class)
+				.withDescription("Number of chunks of a file tokenized in parallel. The file is split at empty rows into chunks of roughly equal size, the rows are mapped in the order of the file. 0 tokenizes the file sequentially. Default: 0")
+				.withDefaultValue(0)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_TEXT_SEGMENT_SENTENCES)
+				.withType(Integer.class)
+				.withDescription("Number of sentences after which a new primary text is started, so that a huge document is split into several texts. 0 creates a single text. Default: 0")
+				.withDefaultValue(0)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_TEXT_SEGMENT_SIZE)
+				.withType(Integer.class)
+				.withDescription("Size of a primary text in megabytes (2^20 characters), after which a new primary text is started with the next sentence, so that a huge document is split into several texts. 0 for no limit. Default: 0")
+				.withDefaultValue(0)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_STRING_POOL_SIZE)
+				.withType(Integer.class)
+				.withDescription("Maximal number of distinct annotation names and values like POS tags, lemmas, dependency relations and features, which are pooled for all documents, so that equal values share one string. 0 disables pooling. Default: 0")
+				.withDefaultValue(0)
+				.build());
+		addProperty(PepperModuleProperty.create()
+				.withName(PROP_PARALLEL_SENTENCES)
+				.withType(Integer.class)
+				.withDescription("Maximal number of sentences of a document mapped ahead in parallel by worker threads. The tokens, annotations and dependencies of a sentence are mapped independently of the other sentences and merged into the document in the order of the file, so that the document is the same as mapped sequentially. 0 maps the sentences sequentially. Default: 0")
+				.withDefaultValue(0)
+				.build());
         }
 
 	public String getSPos() {
@@ -362,5 +434,49 @@ public class CoNLLImporterProperties extends PepperModuleProperties {
     	Object val = getProperty(PROP_DEPREL_AT_TOKEN).getValue();
     	return val == null? null : (String) val;
     }
+    
+    public String getEncoding() {
+    	Object val = getProperty(PROP_ENCODING).getValue();
+    	return val == null? null : (String) val;
+    }
+    
+    public int getPrefetch() {
+    	Object val = getProperty(PROP_PREFETCH).getValue();
+    	return val == null? 0 : (Integer) val;
+    }
+    
+    public boolean isSplitNewdoc() {
+    	Object val = getProperty(PROP_SPLIT_NEWDOC).getValue();
+    	return val == null? false : (Boolean) val;
+    }
+    
+    public int getParallelChunks() {
+    	Object val = getProperty(PROP_PARALLEL_CHUNKS).getValue();
+    	return val == null? 0 : (Integer) val;
+    }
+    
+    public int getTextSegmentSentences() {
+    	Object val = getProperty(PROP_TEXT_SEGMENT_SENTENCES).getValue();
+    	return val == null? 0 : (Integer) val;
+    }
+    
+    /**
+     * Returns the size of a primary text in characters, after which a new one
+     * is started, or 0 for no limit.
+     */
+    public long getTextSegmentSize() {
+    	Object val = getProperty(PROP_TEXT_SEGMENT_SIZE).getValue();
+    	return val == null? 0 : ((long) (Integer) val) << 20;
+    }
+    
+    public int getStringPoolSize() {
+    	Object val = getProperty(PROP_STRING_POOL_SIZE).getValue();
+    	return val == null? 0 : (Integer) val;
+    }
+    
+    public int getParallelSentences() {
+    	Object val = getProperty(PROP_PARALLEL_SENTENCES).getValue();
+    	return val == null? 0 : (Integer) val;
+    }
 
 }
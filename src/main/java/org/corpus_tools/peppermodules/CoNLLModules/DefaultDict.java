@@ -19,25 +19,50 @@ package org.corpus_tools.peppermodules.CoNLLModules;
  */
 
 import java.util.HashMap;
+import java.util.function.Supplier;
 
-import java.util.HashMap;
-
+/**
+ * A {@link HashMap}, which creates and puts the value for a missing key on
+ * {@link #get(Object)}.
+ */
 public class DefaultDict<K, V> extends HashMap<K, V> {
 
-    Class<V> klass;
-    public DefaultDict(Class klass) {
-        this.klass = klass;    
+    private final Supplier<? extends V> supplier;
+
+    /**
+     * Creates a dict getting the values for missing keys from the given
+     * supplier, e.g. <code>ArrayList::new</code>.
+     */
+    public DefaultDict(Supplier<? extends V> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Creates a dict creating the values for missing keys by the default
+     * constructor of the given class.
+     * 
+     * @deprecated creates the values by reflection, use
+     *             {@link #DefaultDict(Supplier)}
+     */
+    @Deprecated
+    public DefaultDict(final Class klass) {
+        this(new Supplier<V>() {
+            @Override
+            public V get() {
+                try {
+                    return (V) klass.newInstance();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
     }
 
     @Override
     public V get(Object key) {
         V returnValue = super.get(key);
         if (returnValue == null) {
-            try {
-                returnValue = klass.newInstance();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            returnValue = supplier.get();
             this.put((K) key, returnValue);
         }
         return returnValue;
@@ -19,29 +19,36 @@ package org.corpus_tools.peppermodules.conll;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import org.apache.commons.lang3.ArrayUtils;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.corpus_tools.pepper.common.DOCUMENT_STATUS;
 import org.corpus_tools.pepper.impl.PepperMapperImpl;
 import org.corpus_tools.pepper.modules.exceptions.PepperModuleDataException;
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleException;
 import org.corpus_tools.peppermodules.CoNLLModules.CoNLLCorefMarkable;
+import org.corpus_tools.peppermodules.CoNLLModules.CoNLLDocumentRange;
+import org.corpus_tools.peppermodules.CoNLLModules.CoNLLImportPlan;
+import org.corpus_tools.peppermodules.CoNLLModules.CoNLLImportPlan.FeatureRule;
 import org.corpus_tools.peppermodules.CoNLLModules.CoNLLImporterProperties;
-import org.corpus_tools.peppermodules.CoNLLModules.DefaultDict;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleConnectorFactory;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SPointingRelation;
 import org.corpus_tools.salt.common.SSpan;
@@ -67,8 +74,6 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 	private ConllDataField firstSPOSField = null;
 	private ConllDataField secondSPOSField = null;
 
-	private final ConllDataField DEFAULT_SPOS = ConllDataField.POSTAG;
-
 	private static final String PROJECTIVE = "projective";
 	private static final String PRODEP = "prodep";
 	private static final String DEP = "dep";
@@ -85,10 +90,18 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 	private static final String ANNO_NAME_HEAD_ID = "head_id";
 	private static final String ANNO_NS_IDS = "sentence";
 
+	/**
+	 * maximal length of the primary text, which is limited by the maximal
+	 * size of an array
+	 */
+	static final int MAX_TEXT_LENGTH = Integer.MAX_VALUE - 8;
+
+	// order in which the brackets of markables of a token are processed
+	private static final byte[] MARK_KINDS = { EntityBrackets.SINGLETON, EntityBrackets.OPEN, EntityBrackets.CLOSE };
+
 	// separator for feature annotation values
 	private final String FEATURESEPARATOR = "\\|";
 
-
 	boolean splitFeatures;
 	boolean keyValFeatures;
 	
@@ -97,14 +110,42 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 	  setProperties(new CoNLLImporterProperties());
 	}
 
-	// retrieves whether to split pipe separated feature values or not
-	private boolean getSplitFeatures() {
-	  return (Boolean) getProperties().getProperty(CoNLLImporterProperties.PROP_SPLIT_FEATURES).getValue();
+	/**
+	 * the properties resolved for the import
+	 */
+	private CoNLLImportPlan plan = null;
+
+	/**
+	 * annotation names and values shared with other mappers, or null
+	 */
+	private StringPool stringPool = null;
+
+	/**
+	 * Sets the properties resolved for the import, which are shared by the
+	 * mappers of all documents. If none is set, they are resolved from
+	 * {@link #getProperties()} when mapping the document.
+	 */
+	public void setImportPlan(CoNLLImportPlan plan) {
+		this.plan = plan;
 	}
 
-        // retrieves whether to split pipe separated feature values and expect key names as in: Case=Gen|Number=Plur
-	private boolean getKeyValFeatures() {
-	  return (Boolean) getProperties().getProperty(CoNLLImporterProperties.PROP_KEYVAL_FEATURES).getValue();
+	public CoNLLImportPlan getImportPlan() {
+		return (this.plan);
+	}
+
+	/**
+	 * Sets the pool for annotation names and values shared by the mappers of
+	 * all documents, or null for no pooling.
+	 */
+	public void setStringPool(StringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
+	/**
+	 * Returns the pooled string equal to the given annotation name or value.
+	 */
+	private String pool(String string) {
+		return (this.stringPool == null ? string : this.stringPool.intern(string));
 	}
 
         // check for user-defined edge type, POS and lemma annotation names
@@ -134,169 +175,12 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 
         // ArrayList to hold CoNLL-style bracketed spans from MISC field
         ArrayList<CoNLLCorefMarkable> markables = new ArrayList<>();
-        
-        private String getEdgeType(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_EDGETYPE_NAME, "dep");
-        }
-        
-        private String getEnhancedEdgeType(){
-            return ((CoNLLImporterProperties) getProperties()).getEnhancedEdgeType();
-        }
-
-        private String getEdgeLayer(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_EDGELAYER_NAME, "dep");
-        }
-
-         private String getEdgeAnnoName(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_EDGEANNO_NAME, "deprel");
-        }
-
-         private String getEdgeAnnoNS(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_EDGEANNO_NS, "dep");
-        }
-         
-         private String getMetaPrefix(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.META_PREFIX, "meta_");
-         }
-
-         private String[] getSentAnnos(){
-            return ((CoNLLImporterProperties) getProperties()).getSentAnnos();
-         }
-
-         private String getMarkNamespace(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.MARK_NS, null);
-         }
-
-         private String getMarkAnnotation(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.MARK_ANNO, null);
-         }
-
-         private String[] getMarkLabels(){
-            return ((CoNLLImporterProperties) getProperties()).getMarkLabels();
-         }
-
-         private String getMiscNamespace(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_MISC_NAMESPACE, null);
-        }
-        
-         private String getFeaturesNamespace(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_FEATURES_NAMESPACE, null);
-        }
-        
-        private String getPosName(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_POS_NAME, "");
-        }
-        
-        private String getSecondPosName(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_SECOND_POS_NAME, "");
-        }
-        
-        private String getLemmaName(){
-            return (String) getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_LEMMA_NAME, "");
-        }
-        
-        private boolean dependenciesHaveLayers() {
-        	return ((CoNLLImporterProperties) getProperties()).dependenciesHaveLayers();
-        }
-        
-        private boolean splitEnhancedDeprels() {
-        	return ((CoNLLImporterProperties) getProperties()).splitEnhancedDeprels();
-        }
-        
-        private boolean noDuplicateEdeps() {
-        	return ((CoNLLImporterProperties) getProperties()).noDuplicateEdeps();                
-        }
-        
-        private String getEllipsisAnno(){
-            return ((CoNLLImporterProperties) getProperties()).getEllipsisAnno();
-        }
 
         boolean useSLemmaAnnotation;
 
-	// retrieves whether or not to use SLemmaAnnoations
-	private boolean getUseSLemmaAnnotation() {
-		String propVal = (String) getProperties().getProperty(CoNLLImporterProperties.PROP_SLEMMA).getValue();
-		if (propVal.equals(CoNLLImporterProperties.PROPERTYVAL_LEMMA))
-			return true;
-		if (propVal.equals(CoNLLImporterProperties.PROPERTYVAL_NONE))
-			return false;
-		logger.warn(String.format("Invalid value '%s' for property '%s'. Default value '%s' is used.", propVal, CoNLLImporterProperties.PROP_SLEMMA, CoNLLImporterProperties.PROPERTYVAL_LEMMA));
-		return CoNLLImporterProperties.defaultUseSLemmaAnnoation;
-	}
-
 	boolean useSPOSAnnotation;
 
-	// retrieves whether or not to use SPOSAnnoations and sets the values for
-	// 'firstPOSField' and 'secondPOSField'
-	private boolean getUseSPOSAnnotation() {
-		this.firstSPOSField = null;
-		this.secondSPOSField = null;
-
-		if(getProperties().getProperty(CoNLLImporterProperties.PROP_SPOS) == null) {
-			if (CoNLLImporterProperties.defaultUseSPOSAnnoation) {
-				this.firstSPOSField = DEFAULT_SPOS;
-			}
-			return CoNLLImporterProperties.defaultUseSPOSAnnoation;
-		}
-		String propVal = (String) getProperties().getProperty(CoNLLImporterProperties.PROP_SPOS).getValue();
-		String[] propVals = propVal.split(",");
-
-		if (propVals.length > 2) {
-			logger.warn(String.format("Found '%s' for property '%s'. Only two values are regarded, the rest will be ignored.", propVal, CoNLLImporterProperties.PROP_SPOS));
-		}
-
-		if ((propVals.length > 1) && (propVals[0].equals(CoNLLImporterProperties.PROPERTYVAL_NONE))) {
-			logger.warn(String.format("Found '%s' for property '%s'. With this setting, no SPOSAnnotation will ever be created.", propVal, CoNLLImporterProperties.PROP_SPOS));
-		}
-
-		String val = propVals[0].trim();
-		if (val.equals(CoNLLImporterProperties.PROPERTYVAL_NONE)) {
-			return false;
-		} else if ((val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) || (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG))) {
-			if (val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) {
-				this.firstSPOSField = ConllDataField.POSTAG;
-			} else if (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG)) {
-				this.firstSPOSField = ConllDataField.CPOSTAG;
-			}
-		} else {
-			if (propVals.length == 1) {
-				logger.warn(String.format("Invalid value '%s' for property '%s'. Using default value.", val, CoNLLImporterProperties.PROP_SPOS));
-				this.firstSPOSField = DEFAULT_SPOS;
-			} else {
-				logger.warn(String.format("Invalid value '%s' for property '%s'. Using alternative value.", val, CoNLLImporterProperties.PROP_SPOS));
-			}
-		}
-
-		if (propVals.length >= 2) {
-			val = propVals[1].trim();
-			if (val.equals(CoNLLImporterProperties.PROPERTYVAL_NONE)) {
-			} else if ((val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) || (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG))) {
-				ConllDataField field = null;
-				if (val.equals(CoNLLImporterProperties.PROPERTYVAL_POSTAG)) {
-					field = ConllDataField.POSTAG;
-				} else if (val.equals(CoNLLImporterProperties.PROPERTYVAL_CPOSTAG)) {
-					field = ConllDataField.CPOSTAG;
-				}
-
-				if (this.firstSPOSField == null) {
-					this.firstSPOSField = field;
-				} else {
-					this.secondSPOSField = field;
-				}
-			} else {
-				if (this.firstSPOSField == null) {
-					logger.warn(String.format("Invalid alternative value '%s' for property '%s'. Using default value.", val, CoNLLImporterProperties.PROP_SPOS));
-					this.firstSPOSField = DEFAULT_SPOS;
-				} else {
-					logger.warn(String.format("Invalid alternative value '%s' for property '%s'.", val, CoNLLImporterProperties.PROP_SPOS));
-				}
-			}
-		}
-
-		return (this.firstSPOSField != null);
-	}
-
-	private void createPOSandCPOSAnnotation(ArrayList<String> fieldValues, SToken sToken) {
+	private void createPOSandCPOSAnnotation(List<String> fieldValues, SToken sToken) {
                 ConllDataField field2;
 		{
 			if (this.useSPOSAnnotation) {
@@ -319,7 +203,7 @@ public class Conll2SaltMapper extends PepperMapperImpl {
                                                                     // Standard Salt Semantics POS tag - make anno into a new SPOSAnnotation 
                                                                     anno = SaltFactory.createSPOSAnnotation();
                                                                 }
-								anno.setValue(fieldVal);                                                                
+								anno.setValue(pool(fieldVal));                                                                
 								sToken.addAnnotation(anno);
 								SPOSAnnotationIndex = index;
 							}
@@ -340,7 +224,7 @@ public class Conll2SaltMapper extends PepperMapperImpl {
                                                                     // This is a second POS annotation, use a regular nameable SAnnotation
                                                                     anno = SaltFactory.createSAnnotation();
                                                                     anno.setName(secondPosName);                                                                                                                             
-                                                                    anno.setValue(fieldVal);                                                                
+                                                                    anno.setValue(pool(fieldVal));                                                                
                                                                     sToken.addAnnotation(anno);
                                                                 }
 							}
@@ -355,8 +239,8 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 							String fieldVal = fieldValues.get(field.getFieldNum() - 1);
 							if (fieldVal != null) {
 								SAnnotation anno = SaltFactory.createSAnnotation();
-								anno.setName(getProperties().getProperties().getProperty(field.getPropertyKey_Name(), field.name())); // use user specified name for field, or default: the field's ConLL name
-								anno.setValue(fieldVal);
+								anno.setName(plan.getFieldName(field)); // use user specified name for field, or default: the field's ConLL name
+								anno.setValue(pool(fieldVal));
 								sToken.addAnnotation(anno);
 								SPOSAnnotationIndex = index;
 							}
@@ -376,165 +260,379 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 	public DOCUMENT_STATUS mapSDocument() {
 		if (getDocument().getDocumentGraph() == null)
 			getDocument().setDocumentGraph(SaltFactory.createSDocumentGraph());
-
-		TupleReader tupleReader = TupleConnectorFactory.fINSTANCE.createTupleReader();
-		// try reading the input file
+		if (this.plan == null)
+			this.plan = new CoNLLImportPlan((CoNLLImporterProperties) getProperties());
+
+		// the input file is streamed row by row, so that only the current row
+		// is held in memory, or optionally tokenized in parallel chunks
+		int parallelChunks = ((CoNLLImporterProperties) getProperties()).getParallelChunks();
+		TupleReader tupleReader = (parallelChunks > 0) ? TupleConnectorFactory.fINSTANCE.createChunkedTupleReader(parallelChunks) : TupleConnectorFactory.fINSTANCE.createMappedTupleReader();
+		tupleReader.setFile(new File(this.getResourceURI().trimFragment().toFileString()));
+		CoNLLDocumentRange range = CoNLLDocumentRange.fromURI(this.getResourceURI());
+		if (range != null)
+			tupleReader.setRange(range.getStart(), range.getEnd());
+		tupleReader.setEncoding(((CoNLLImporterProperties) getProperties()).getEncoding());
+		// optionally read and decode the next sentences in the background,
+		// while the current one is mapped
+		int prefetch = ((CoNLLImporterProperties) getProperties()).getPrefetch();
+		if (prefetch > 0)
+			tupleReader = TupleConnectorFactory.fINSTANCE.createPrefetchingTupleReader(tupleReader, prefetch);
 		try {
-			tupleReader.setFile(new File(this.getResourceURI().toFileString()));
-			tupleReader.readFile();
-		} catch (IOException e) {
-			String errorMessage = "input file could not be read. Abort conversion of file " + this.getResourceURI() + ".";
-			logger.error(errorMessage);
-			throw new PepperModuleDataException(this, errorMessage);
-		}
-
-		STextualDS sTextualDS = SaltFactory.createSTextualDS();
-		String textName = ((CoNLLImporterProperties) getProperties()).getTextName();
-		if(textName != null && !textName.isEmpty()) {
-			sTextualDS.setName(textName);
+			return mapTuples(tupleReader, ((CoNLLImporterProperties) getProperties()).getParallelSentences());
+		} finally {
+			try {
+				tupleReader.close();
+			} catch (IOException e) {
+				logger.warn("input file " + this.getResourceURI() + " could not be closed.", e);
+			}
 		}
-		sTextualDS.setGraph(getDocument().getDocumentGraph());
-
-		ArrayList<SToken> tokenList = new ArrayList<SToken>();
-		HashMap<SPointingRelation, String> pointingRelationMap = new HashMap<SPointingRelation, String>();
-		ArrayList<String> fieldValues = new ArrayList<String>();
-                HashMap<String,Integer> SentTokMap = new HashMap<>();
-
-		Collection<String> tuple = null;
-		int numOfTuples = tupleReader.getNumOfTuples();
-		int lastTupleIndex = numOfTuples - 1;
-		int tupleSize = 0;
-		int numOfColumnsExpected = ConllDataField.values().length;
-		int fieldNum = 1;
+	}
 
-		this.useSLemmaAnnotation = getUseSLemmaAnnotation();
-		this.useSPOSAnnotation = getUseSPOSAnnotation();
-		this.splitFeatures = getSplitFeatures();
-		this.keyValFeatures = getKeyValFeatures();
-        this.posName = getPosName();
-        this.secondPosName = getSecondPosName();
-        this.lemmaName = getLemmaName();
-        this.edgeType = getEdgeType();
-        this.enhancedEdgeType = getEnhancedEdgeType();
-        this.ellipsisAnnoString = getEllipsisAnno();
-        this.ellipsisTokAnno = null;
-        this.ellipsisTokAnnoNS = null;
-        if (this.ellipsisAnnoString != null){
-            if (this.ellipsisAnnoString.contains(":")){
-                String[] parts = this.ellipsisAnnoString.split(":",2);
-                this.ellipsisTokAnnoNS = parts[0];
-                this.ellipsisTokAnno = parts[1];
-            }
-            else{
-                this.ellipsisTokAnno = this.ellipsisAnnoString;
-            }
-        }
-        this.edgeLayer = getEdgeLayer();
-        this.edgeAnnoName = getEdgeAnnoName();
-        this.edgeAnnoNS = getEdgeAnnoNS();
-        this.metaPrefix = getMetaPrefix();
-        this.sentAnnos = getSentAnnos();
-        this.markNamespace = getMarkNamespace();
-        this.featuresNamespace = getFeaturesNamespace();
-        this.miscNamespace = getMiscNamespace();
-        this.dependenciesHaveLayers = dependenciesHaveLayers();
-        this.splitEnhancedDeprels = splitEnhancedDeprels();
-        this.noDuplicateEdeps = noDuplicateEdeps();
+	/**
+	 * Maps all rows provided by the given {@link TupleReader} to the document
+	 * graph. The rows are mapped sentence by sentence to
+	 * {@link SentenceFragment}s, which are merged into the graph in the order
+	 * of the file.
+	 *
+	 * @param parallelSentences
+	 *            maximal number of sentences mapped ahead in parallel, 0 maps
+	 *            them sequentially
+	 */
+	private DOCUMENT_STATUS mapTuples(TupleReader tupleReader, int parallelSentences) {
+		STextualDS sTextualDS = createTextualDS(1);
+		// the segments of the primary text, the last one is the current one
+		List<STextualDS> textSegments = new ArrayList<STextualDS>();
+		textSegments.add(sTextualDS);
+		// the primary text is optionally split into segments after a number of
+		// sentences or characters, a new segment is started with the first
+		// token after the limit has been reached
+		int segmentSentences = plan.getTextSegmentSentences();
+		long segmentSize = plan.getTextSegmentSize();
+		int numOfSegments = 1;
+		int numOfSegmentSentences = 0;
+		int sentenceEnd = 0;
+		boolean startSegment = false;
+
+		this.useSLemmaAnnotation = plan.useSLemmaAnnotation();
+		this.useSPOSAnnotation = plan.useSPOSAnnotation();
+		this.firstSPOSField = plan.getFirstSPOSField();
+		this.secondSPOSField = plan.getSecondSPOSField();
+		this.splitFeatures = plan.isSplitFeatures();
+		this.keyValFeatures = plan.isKeyValFeatures();
+        this.posName = plan.getPosName();
+        this.secondPosName = plan.getSecondPosName();
+        this.lemmaName = plan.getLemmaName();
+        this.edgeType = plan.getEdgeType();
+        this.enhancedEdgeType = plan.getEnhancedEdgeType();
+        this.ellipsisAnnoString = plan.getEllipsisAnno();
+        this.ellipsisTokAnno = plan.getEllipsisTokAnno();
+        this.ellipsisTokAnnoNS = plan.getEllipsisTokAnnoNS();
+        this.edgeLayer = plan.getEdgeLayer();
+        this.edgeAnnoName = plan.getEdgeAnnoName();
+        this.edgeAnnoNS = plan.getEdgeAnnoNS();
+        this.metaPrefix = plan.getMetaPrefix();
+        this.sentAnnos = plan.getSentAnnos();
+        this.markNamespace = plan.getMarkNamespace();
+        this.featuresNamespace = plan.getFeaturesNamespace();
+        this.miscNamespace = plan.getMiscNamespace();
+        this.dependenciesHaveLayers = plan.dependenciesHaveLayers();
+        this.splitEnhancedDeprels = plan.splitEnhancedDeprels();
+        this.noDuplicateEdeps = plan.noDuplicateEdeps();
         if (this.markNamespace != null){
            this.markLayer = SaltFactory.createSLayer();
            this.markLayer.setName(this.markNamespace);
            this.markLayer.setGraph(getDocument().getDocumentGraph());
        }
-        this.markAnnotation = getMarkAnnotation();
-        this.markLabels = getMarkLabels();
-        this.grpIdIndex = Arrays.asList(this.markLabels).indexOf("GRP");
-
-        // regex patterns to match coref Info with opening brackets, closing, or both
-        Pattern patOpen = Pattern.compile("\\(([^|()]+)");
-        Pattern patClose = Pattern.compile("([^|()]+)\\)");
-        Pattern patDouble = Pattern.compile("\\(([^|()]+)\\)");
-        boolean nestedClosed = true;
+        this.markAnnotation = plan.getMarkAnnotation();
+        this.markLabels = plan.getMarkLabels();
+        this.grpIdIndex = plan.getGrpIdIndex();
+
+        // brackets of markables in the MISC field
+        EntityBrackets entityBrackets = new EntityBrackets();
         String group;
-        int tok_counter=0;
 
         // markable containers
-        DefaultDict<Integer,List<CoNLLCorefMarkable>> markstart_dict = new DefaultDict<>(ArrayList.class);
-        DefaultDict<Integer,List<CoNLLCorefMarkable>> markend_dict = new DefaultDict<>(ArrayList.class);
-        LinkedHashMap<String,LinkedList<CoNLLCorefMarkable>> last_mark_by_group = new LinkedHashMap<>();        
-        LinkedHashMap<String,LinkedList<CoNLLCorefMarkable>> open_marks_by_group = new LinkedHashMap<>();        
-        DefaultDict<String,String> mark_text_by_group = new DefaultDict<>(String.class);        
-        
-        
-        boolean considerProjectivity = (Boolean) getProperties().getProperty(CoNLLImporterProperties.PROP_CONSIDER_PROJECTIVITY).getValue();
-        boolean projectiveModeIsType = !getProperties().getProperties().getProperty(CoNLLImporterProperties.PROP_PROJECTIVE_MODE, TYPE).equalsIgnoreCase(NAMESPACE);
+        CorefChainTracker corefChains = new CorefChainTracker();
 
 		// this list is used to collect lines numbers where number of categories
 		// does not match expected number of categories
-		ArrayList<Integer> nonMatchingCategoryNumberLines = new ArrayList<Integer>();
+		ArrayList<Long> nonMatchingCategoryNumberLines = new ArrayList<Long>();
 
-		// using a StringBuilder for the iteratively updated raw text
-		int stringBuilderCharBufferSize = tupleReader.characterSize(ConllDataField.FORM.getFieldNum() - 1) + numOfTuples;
-		StringBuilder primaryText = new StringBuilder(stringBuilderCharBufferSize);
+		// using a StringBuilder for the iteratively updated raw text, the size
+		// of the text is not known in advance since the file is streamed
+		StringBuilder primaryText = new StringBuilder();
 
                 // layer for dependency edges
                 SLayer lyr = SaltFactory.createSLayer();
                 lyr.setName(edgeLayer);
-               
-		List<SToken> sentenceToken = new LinkedList<>();	
+
+		// all tokens of the document for creating sentence and markable spans
+		SpanFactory spanFactory = new SpanFactory(getDocument().getDocumentGraph());
+		// index of the first token of the current sentence
+		int sentenceStart = 0;
+
+                List<SAnnotation> sentAnnos = new LinkedList<>();
+
+		// iteration over all sentences of the input file, which are merged
+		// into the document graph in the order of the file
+		FragmentReader fragmentReader = new FragmentReader(tupleReader, parallelSentences);
+		try {
+			SentenceFragment fragment;
+			while ((fragment = fragmentReader.next()) != null) {
+				for (Pair<String, String> metaAnnotation : fragment.getMetaAnnotations()) {
+					getDocument().createMetaAnnotation(null, metaAnnotation.getKey(), metaAnnotation.getValue());
+				}
+				sentAnnos.addAll(fragment.getSentenceAnnotations());
+				nonMatchingCategoryNumberLines.addAll(fragment.getNonMatchingCategoryLines());
+
+				// the text of the sentence is appended to the primary text, the
+				// offsets of its tokens are rebased by the length of the text
+				// before
+				int textOffset = primaryText.length();
+				int tokenOffset = spanFactory.size();
+				for (int position = 0; position < fragment.size(); position++) {
+					SToken sToken = fragment.getToken(position);
+					sToken.setGraph(getDocument().getDocumentGraph());
+
+                                if (startSegment) {
+                                    setText(sTextualDS, primaryText);
+                                    sTextualDS = createTextualDS(++numOfSegments);
+                                    textSegments.add(sTextualDS);
+                                    primaryText = new StringBuilder();
+                                    numOfSegmentSentences = 0;
+                                    sentenceEnd = 0;
+                                    startSegment = false;
+                                    textOffset = 0;
+                                }
+
+					checkTextLength(primaryText, fragment.getTextEnd(position) + 1, fragment.getRow(position));
+
+					// create textual relation
+					STextualRelation sTextualRelation = SaltFactory.createSTextualRelation();
+					sTextualRelation.setSource(sToken);
+					sTextualRelation.setTarget(sTextualDS);
+					sTextualRelation.setStart(textOffset + fragment.getTextStart(position));
+					sTextualRelation.setEnd(textOffset + fragment.getTextEnd(position));
+					sTextualRelation.setGraph(getDocument().getDocumentGraph());
+
+					spanFactory.addToken(sToken);
+				}
+				primaryText.append(fragment.getText());
+
+				// bracket markables like Entity=(person, which may cross sentences
+				for (int m = 0; m < fragment.getNumOfMarks(); m++) {
+					int position = fragment.getMarkToken(m);
+					int tok_counter = tokenOffset + position;
+					int tokenTextStartOffset = textOffset + fragment.getTextStart(position);
+					int tokenTextEndOffset = textOffset + fragment.getTextEnd(position);
+
+                                                    entityBrackets.scan(fragment.getMarkValue(m));
+                                                    // markables of a single token are created first, then opening and at last closing ones
+                                                    for (byte kind : MARK_KINDS){
+                                                        for (int e = 0; e < entityBrackets.size(); e++){
+                                                            if (entityBrackets.getKind(e) != kind){
+                                                                continue;
+                                                            }
+                                                            group = entityBrackets.getGroup(e, this.grpIdIndex);
+                                                            int groupIndex = corefChains.getGroup(group);
+                                                            if (kind == EntityBrackets.CLOSE){
+                                                                int markIndex = corefChains.close(groupIndex);
+                                                                if (markIndex < 0){
+                                                                    throw new PepperModuleDataException(this, "Found closing bracket " + group + " but group was not opened!");
+                                                                }
+                                                                CoNLLCorefMarkable mark = markables.get(markIndex);
+                                                                mark.setText(getCoveredText(textSegments, mark.getTextSegment(), mark.getTextStart(), primaryText, tokenTextEndOffset));
+                                                                mark.setEnd(tok_counter);
+                                                                continue;
+                                                            }
+                                                            CoNLLCorefMarkable new_mark = new CoNLLCorefMarkable(tok_counter);
+                                                            new_mark.setAnnoString(entityBrackets.getContent(e)); // save contents of bracketed markable
+                                                            new_mark.setGroup(group);  // save only the group part, if a GRP part is specified
+                                                            int markIndex = markables.size();
+                                                            int antecedent = corefChains.addMark(groupIndex, markIndex);
+                                                            if (antecedent >= 0){
+                                                                new_mark.antecedent = markables.get(antecedent);
+                                                            }
+                                                            markables.add(new_mark);
+                                                            if (kind == EntityBrackets.SINGLETON){
+                                                                new_mark.setEnd(tok_counter);
+                                                            } else{
+                                                                corefChains.open(groupIndex, markIndex);
+                                                                new_mark.setTextStart(textSegments.size() - 1, tokenTextStartOffset);
+                                                            }
+                                                        }
+                                                    }
+				}
+
+				if (fragment.isComplete()) { // the sentence is finished by an empty or comment row
+				  if(spanFactory.size() > sentenceStart
+				      && plan.isSentence())
+        {
+          // create span and add span annotation
+          SSpan sSpan = spanFactory.createSpan(sentenceStart, spanFactory.size() - 1);
+          sSpan.createAnnotation(null, CAT, S);
+          for (SAnnotation sAnno : sentAnnos){
+              sSpan.addAnnotation(sAnno);
+          }
+          sentAnnos.clear();
+        }
+
+				  sentenceStart = spanFactory.size();
+				}
+
+				createDependencies(fragment, lyr);
+				if (fragment.isComplete() && primaryText.length() > sentenceEnd) {
+					numOfSegmentSentences++;
+					sentenceEnd = primaryText.length();
+					startSegment = (segmentSentences > 0 && numOfSegmentSentences >= segmentSentences) || (segmentSize > 0 && primaryText.length() >= segmentSize);
+				}
+
+			} // while ((fragment = fragmentReader.next()) != null)
+		} finally {
+			fragmentReader.close();
+		}
+
+		// also add the last sentence, if the file does not end with an empty row
+		if(spanFactory.size() > sentenceStart
+        && plan.isSentence())
+    {
+      // create span and add span annotation
+      SSpan sSpan = spanFactory.createSpan(sentenceStart, spanFactory.size() - 1);
+      sSpan.createAnnotation(null, CAT, S);
+    }
+
+		// ### file is completely read now
+
+		// a markable, which is never closed, has no end
+		int openMarkIndex = corefChains.getFirstOpenMark();
+		if (openMarkIndex >= 0) {
+			CoNLLCorefMarkable openMark = markables.get(openMarkIndex);
+			throw new PepperModuleDataException(this, "Found opening bracket (" + openMark.getAnnoString() + " at token " + (openMark.getStart() + 1) + " but group was not closed! Abort conversion of file " + this.getResourceURI() + ".");
+		}
+
+		setText(sTextualDS, primaryText);
                 
-                List<SAnnotation> sentAnnos = new LinkedList<>();	
                 
-		// iteration over all data rows (the complete input-file)
-        String deprelAtTokenAnnoName = ((CoNLLImporterProperties) getProperties()).getDeprelTokenAnnoName();
-		for (int rowIndex = 0; rowIndex < numOfTuples; rowIndex++) {
-			try {
-				tuple = tupleReader.getTuple();
-			} catch (IOException e) {
-				String errorMessage = String.format("line %d of input file could not be read. Abort conversion of file " + this.getResourceURI() + ".", rowIndex + 1);
-				throw new PepperModuleDataException(this, errorMessage);
-			}
+    // Import any spans encoded in CoNLL-U MISC field as grouped brackets
+        // keep a mapping of Markables to SSpans to link edges later
+        LinkedHashMap<CoNLLCorefMarkable,SSpan> marks2spans = new LinkedHashMap<>();
+        
+        // create sSpans for all markables and link to antecedents if necessary
+        for (CoNLLCorefMarkable mark : markables){
+            SSpan sSpan = spanFactory.createSpan(mark.getStart(), mark.getEnd());
+            if (this.markNamespace != null){
+                if (sSpan == null){
+                    throw new PepperModuleDataException(this, "Null span detected, created from markable object: " + mark.toString());
+                }
+                sSpan.addLayer(this.markLayer);
+            }
+            if (this.markLabels != null){
+                int i=0;
+                for (String subval : mark.getAnnoString().split("-")){                
+                    if (this.markLabels.length < i){
+                        break; // undeclared annotation value, ignore
+                    }
+                    String annoName = this.markLabels[i];
+                    i++;
+                    if (annoName.length() == 0 || subval.length()== 0 || annoName.equals("GRP")){
+                        continue;  // ignore zero length annotations
+                    }
+                    if (annoName.equals("EDGE")){
+                        mark.setEdgeType(subval);
+                        continue;
+                    }
+                    SAnnotation annotation = SaltFactory.createSAnnotation();
+                    annotation.setName(annoName);
+                    annotation.setValue(subval);
+                    if (this.markNamespace != null){
+                        annotation.setNamespace(this.markNamespace);
+                    }                
+                    sSpan.addAnnotation(annotation);
+                }
+            }
+            if (mark.getNodeName()!=null){
+                sSpan.setName(mark.getNodeName());
+            }
+            
+            // remember SSpan object belonging to this markID
+            marks2spans.put(mark, sSpan);
+        }
+        
+        // add edges
+        for (CoNLLCorefMarkable mark : markables){
+             if (mark.antecedent != null){
+                SPointingRelation sRel = SaltFactory.createSPointingRelation();  
+                sRel.setSource(marks2spans.get(mark));
+                sRel.setTarget(marks2spans.get(mark.antecedent));
+                sRel.setType("coref");
+                SAnnotation relAnno = SaltFactory.createSAnnotation();
+                relAnno.setName("type");
+                relAnno.setValue(mark.getEdgeType());
+                sRel.addAnnotation(relAnno);
+                if (this.markNamespace != null){
+                    sRel.addLayer(this.markLayer);
+                }
+                getDocument().getDocumentGraph().addRelation(sRel);
+             }
+        }
 
-			tupleSize = tuple.size();
-			fieldValues.clear();
+		if (nonMatchingCategoryNumberLines.size() > 0) {
+			logger.warn("Number of feature values doesn't match number of categories in lines: " + nonMatchingCategoryNumberLines.toString());
+		}
+		return (DOCUMENT_STATUS.COMPLETED);
+	} // map
+
+	/**
+	 * Maps the given row of a sentence to the given fragment. Rows of other
+	 * sentences may be mapped at the same time by other threads.
+	 *
+	 * @param rowIndex
+	 *            index of the row, used for error messages
+	 * @param workspace
+	 *            the workspace of the current thread
+	 */
+	private void mapRow(SentenceFragment fragment, TupleRow tuple, long rowIndex, Workspace workspace) {
+		int tupleSize = tuple.size();
+		int numOfColumnsExpected = ConllDataField.values().length;
+		int fieldNum = 1;
+		FieldValues fieldValues = workspace.fieldValues;
+		// maps the packed token ids of the sentence to positions in the sentence
+		TokenPositionTable SentTokMap = workspace.positions;
+		String textName = plan.getTextName();
 
 			if (!((tupleSize == 1) || (tupleSize == numOfColumnsExpected))) {
 				String errorMessage = String.format("invalid format in line %d of input file. lines must be empty or contain %d columns of data. Abort conversion of file " + this.getResourceURI() + ".", rowIndex + 1, numOfColumnsExpected);
 				throw new PepperModuleDataException(this, errorMessage);
 			}
+			fragment.setComplete(tupleSize == 1);
 
 			if (tupleSize > 1) { // if true, this is a data row, else it is a sentence separating line
 
-				// read all field values
-				fieldNum = 1;
-				for (Iterator<String> iter = tuple.iterator(); iter.hasNext(); fieldNum++) {
+				// check mandatory field values, all values are decoded not
+				// before they are requested
+				fieldValues.setRow(tuple);
+				for (fieldNum = 1; fieldNum <= tupleSize; fieldNum++) {
 					ConllDataField field = ConllDataField.getFieldByNum(fieldNum);
-					String fieldValue = iter.next();
-					if (fieldValue.equals(field.getDummyValue())) {
-						fieldValue = null;
-						if (field.isMandatory()) {
-							String errorMessage = String.format("mandatory value for %s missing in line %d of input file '" + this.getResourceURI() + "'!", field.toString(), rowIndex + 1);
-							throw new PepperModuleDataException(this, errorMessage);
-						}
+					if (field.isMandatory() && field.isDummy(tuple)) {
+						String errorMessage = String.format("mandatory value for %s missing in line %d of input file '" + this.getResourceURI() + "'!", field.toString(), rowIndex + 1);
+						throw new PepperModuleDataException(this, errorMessage);
 					}
-					fieldValues.add(fieldValue);
-				} // for (Iterator<String> iter=tuple.iterator();
-					// iter.hasNext(); fieldNum++)
+				} // for (fieldNum=1; fieldNum<=tupleSize; fieldNum++)
 
 
-                                String tokenIDStr = fieldValues.get(ConllDataField.ID.getFieldNum() - 1);				
+                                String tokenIDStr = fieldValues.get(ConllDataField.ID.getFieldNum() - 1);
                                 if (tokenIDStr.contains("-")) {  // Skip multiword (a.k.a. MWT) supertokens
-                                        continue;
+                                        return;
                                 }
-                                
-				// create token and add to local token list
+
+				// create token, which is added to the graph when the sentence
+				// is merged into the document
 				SToken sToken = SaltFactory.createSToken();
-				sToken.setGraph(getDocument().getDocumentGraph());
-				tokenList.add(sToken);
 
-                                // update primary text (sTextualDS.sText will be set after
-				// completely reading the input file)
-                                
-                                int tokenTextStartOffset = primaryText.length();
+                                // update text of the sentence, the offsets are rebased
+				// when the sentence is merged into the document
+                                StringBuilder sentenceText = fragment.getText();
+                                int tokenTextStartOffset = sentenceText.length();
                                 String tokText;
                                 if (tokenIDStr.contains(".") && this.ellipsisTokAnno != null){
                                     String ellipsisToken = fieldValues.get(ConllDataField.FORM.getFieldNum() - 1);
@@ -543,24 +641,19 @@ public class Conll2SaltMapper extends PepperMapperImpl {
                                     sa.setNamespace(this.ellipsisTokAnnoNS);
                                     sa.setValue(ellipsisToken);
                                     sToken.addAnnotation(sa);
-                                    primaryText.append(" ").append(" "); // ellipsis token and properties configured to import form field as annotation
+                                    checkTextLength(sentenceText, 2, rowIndex);
+                                    sentenceText.append(" ").append(" "); // ellipsis token and properties configured to import form field as annotation
                                     tokText = " ";
                                 } else{
                                     tokText = fieldValues.get(ConllDataField.FORM.getFieldNum() - 1);
-                                    primaryText.append(tokText).append(" "); // update primary text data, tokens separated by space
+                                    checkTextLength(sentenceText, tokText.length() + 1, rowIndex);
+                                    sentenceText.append(tokText).append(" "); // update primary text data, tokens separated by space
                                 }
-                                
-				int tokenTextEndOffset = primaryText.length() - 1;
-
-				// create textual relation
-				STextualRelation sTextualRelation = SaltFactory.createSTextualRelation();
-				sTextualRelation.setSource(sToken);
-				sTextualRelation.setTarget(sTextualDS);
-				sTextualRelation.setStart(tokenTextStartOffset);
-				sTextualRelation.setEnd(tokenTextEndOffset);
-				sTextualRelation.setGraph(getDocument().getDocumentGraph());
-				
-				sentenceToken.add(sToken);
+
+				int tokenTextEndOffset = sentenceText.length() - 1;
+
+				// position of the token in the sentence
+				int position = fragment.addToken(sToken, tokenTextStartOffset, tokenTextEndOffset, rowIndex);
 
 				// Lemma
 				{
@@ -570,14 +663,14 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 						SAnnotation sAnnotation = SaltFactory.createSAnnotation();
 						if (useSLemmaAnnotation) {
                                                         if (lemmaName != null && lemmaName.length() > 0){
-                                                            sAnnotation.setName(lemmaName);                                                             
+                                                            sAnnotation.setName(lemmaName);
                                                         }
                                                         else{
                                                             sAnnotation = SaltFactory.createSLemmaAnnotation();
                                                         }
-                                                        sAnnotation.setValue(fieldValue);
-                                                        sToken.addAnnotation(sAnnotation);                                                        
-						}                                                 
+                                                        sAnnotation.setValue(pool(fieldValue));
+                                                        sToken.addAnnotation(sAnnotation);
+						}
 					}
 				}
 
@@ -586,7 +679,7 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 					createPOSandCPOSAnnotation(fieldValues, sToken);
 				}
 				/// POS and CPOS
-				
+
 				// features
 				String featureValue = fieldValues.get(ConllDataField.FEATS.getFieldNum() - 1);
 
@@ -595,110 +688,69 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 					// POSTAG (fine grained) gets priority over
 					// CPOSTAG (coarse grained). if neither one is defined, use
 					// default
-					String ruleKey = CoNLLImporterProperties.PROP_FIELD6_POSTAG + fieldValues.get(ConllDataField.POSTAG.getFieldNum() - 1);
-					if (!getProperties().getProperties().containsKey(ruleKey)) {
-						ruleKey = CoNLLImporterProperties.PROP_FIELD6_CPOSTAG + fieldValues.get(ConllDataField.CPOSTAG.getFieldNum() - 1);
-						if (!getProperties().getProperties().containsKey(ruleKey)) {
-							ruleKey = CoNLLImporterProperties.PROP_FIELD6_DEFAULT;
-						}
-					}
-					String featureKey = getProperties().getProperties().getProperty(ruleKey, DEFAULT_FEATURE);
-
-					boolean doSplit = this.splitFeatures;
-					String[] featureKeys = null;
-					if (doSplit) {
-						featureKeys = featureKey.split(FEATURESEPARATOR);
-						if (ruleKey == CoNLLImporterProperties.PROP_FIELD6_DEFAULT) {
-							doSplit = (featureKeys.length > 1);
-						}
-					}
+					FeatureRule rule = plan.getFeatureRule(fieldValues.get(ConllDataField.POSTAG.getFieldNum() - 1), fieldValues.get(ConllDataField.CPOSTAG.getFieldNum() - 1));
+					String featureKey = rule.getKey();
+
+					boolean doSplit = this.splitFeatures && rule.isSplit();
+					List<String> featureKeys = rule.getKeys();
                                         if (this.keyValFeatures){ // conll-u style key=val|key2=val2|...
-						String[] featureValues = featureValue.split("\\|");
-                                                for (String KeyVal:featureValues){
-                                                    if (KeyVal.contains("=")){
-                                                        String[] Parts = KeyVal.split("=",2);
-                                                        if (Parts.length == 2){
-                                                            String AnnoKey = Parts[0];
-                                                            String AnnoVal = Parts[1];
-                                                            sToken.createAnnotation(this.featuresNamespace, AnnoKey, AnnoVal);
-                                                        }
-                                                    }
+						FeatsCache.Bundle bundle = workspace.featsCache.get(featureValue);
+                                                for (int idx = 0; idx < bundle.size(); idx++){
+                                                    sToken.createAnnotation(this.featuresNamespace, pool(bundle.getKey(idx)), pool(bundle.getValue(idx)));
                                                 }
                                         }
                                         else if (doSplit) {
 						String[] featureValues = featureValue.split(FEATURESEPARATOR);
-						for (int idx = 0; idx < Math.min(featureKeys.length, featureValues.length); idx++) {
-							sToken.createAnnotation(this.featuresNamespace, featureKeys[idx], featureValues[idx]);
+						for (int idx = 0; idx < Math.min(featureKeys.size(), featureValues.length); idx++) {
+							sToken.createAnnotation(this.featuresNamespace, featureKeys.get(idx), pool(featureValues[idx]));
 						}
-						if (featureKeys.length != featureValues.length) {
-							nonMatchingCategoryNumberLines.add(rowIndex + 1);
+						if (featureKeys.size() != featureValues.length) {
+							fragment.addNonMatchingCategoryLine(rowIndex + 1);
 						}
 					} else {
 						// no splitting
-						sToken.createAnnotation(this.featuresNamespace, featureKey, featureValue);
+						sToken.createAnnotation(this.featuresNamespace, featureKey, pool(featureValue));
 					}
 				} // (featureString!=null)
-				
-				
-				/* BEGIN OF DEPENDENCIES */				
+
+
+				/* BEGIN OF DEPENDENCIES */
 				// get ID of current token
-				Float tokenID = null;
+				long tokenID;
 				try {
-					tokenID = Float.parseFloat(tokenIDStr);
+					tokenID = ConllTokenId.parse(tokenIDStr);
 				} catch (NumberFormatException e) {
 					String errorMessage = String.format("Invalid numerical value '%s' for ID in line %d of input file. Abort conversion of file " + this.getResourceURI() + ".", tokenIDStr, rowIndex + 1);
 
 					throw new PepperModuleDataException(this, errorMessage);
 				}
 
-                                // map potentially float ID to position in token list
-                                SentTokMap.put(tokenID.toString(),tokenList.size()-1);
+                                // map potentially decimal ID to position in sentence
+                                SentTokMap.put(tokenID, position);
+
 
-                                
 				// get ID of current token's head token
-                boolean importIDs = ((CoNLLImporterProperties) getProperties()).importIDs();
+                boolean importIDs = plan.importIDs();
 				String headIDStr = fieldValues.get(ConllDataField.HEAD.getFieldNum() - 1);
-				String headID = null;
-				try {
-					headID = headIDStr.matches("[0-9]+(\\.[0-9]+)?")? headIDStr : "-1";
-					headID = ((Float) Float.parseFloat(headID)).toString(); // make all string IDs decimal
-					if (importIDs) {
-						sToken.createAnnotation(textName == null? ANNO_NS_IDS : textName, ANNO_NAME_TOKEN_ID, Float.toString(tokenID).split("\\.")[0]);
-						sToken.createAnnotation(textName == null? ANNO_NS_IDS : textName, ANNO_NAME_HEAD_ID, headID.split("\\.")[0]);
-					}
-				} catch (NumberFormatException e) {
-					String errorMessage = String.format("Invalid numerical value '%s' for HEAD in line %d of input file '" + this.getResourceURI() + "'. Abort conversion of file " + this.getResourceURI() + ".", headIDStr, rowIndex + 1);
-					throw new PepperModuleDataException(this, errorMessage);
+				// a HEAD value, which is no valid id, e.g. '_', means no head
+				long headID = ConllTokenId.parseOrNone(headIDStr);
+				if (importIDs) {
+					sToken.createAnnotation(textName == null? ANNO_NS_IDS : textName, ANNO_NAME_TOKEN_ID, Integer.toString(ConllTokenId.major(tokenID)));
+					sToken.createAnnotation(textName == null? ANNO_NS_IDS : textName, ANNO_NAME_HEAD_ID, headID == ConllTokenId.NONE ? "-1" : Integer.toString(ConllTokenId.major(headID)));
 				}
-                                
-                                Integer headIDPosition = null;
 
-				// create pointing relation, pointing from head to dependent
-				Pair<String, String> primaryDependency = null;
 				// create annotation for pointing relation
 				String annoValue = fieldValues.get(ConllDataField.DEPREL.getFieldNum() - 1);
+				String deprelAtTokenAnnoName = plan.getDeprelTokenAnnoName();
 				if (annoValue != null && deprelAtTokenAnnoName != null) {
-					sToken.createAnnotation(textName, deprelAtTokenAnnoName, annoValue);
+					sToken.createAnnotation(textName, deprelAtTokenAnnoName, pool(annoValue));
 				}
-				if (Float.parseFloat(headID) > 0) {
-					
-					primaryDependency = Pair.of(headID, annoValue);
-					if (Float.parseFloat(headID) <= tokenID) {
-                                            headIDPosition = SentTokMap.get(headID.toString());
-                                            if (edgeAnnoName != DEPREL){
-						modifyPointingRelation(null, tokenList.get(headIDPosition), sToken, edgeType, edgeAnnoName, annoValue);
-                                            } else{
-                                                modifyPointingRelation(null, tokenList.get(headIDPosition), sToken, edgeType, DEPREL, annoValue);
-                                            }
-					} else {
-                                            if (edgeAnnoName != DEPREL){
-						pointingRelationMap.put(modifyPointingRelation(null, sToken, sToken, edgeType, edgeAnnoName, annoValue), headID);
-                                            } else{
-						pointingRelationMap.put(modifyPointingRelation(null, sToken, sToken, edgeType, DEPREL, annoValue), headID);
-                                            }
-					}
+				if (headID > 0) {
+					// create pointing relation, pointing from head to dependent
+					fragment.addDependency(headID, position, SentenceFragment.PRIMARY, pool(annoValue));
 				}
-				
+
+				boolean considerProjectivity = plan.considerProjectivity();
 				if (considerProjectivity) {
 					// get ID of current token�s projective head token
 					String proheadIDStr = fieldValues.get(ConllDataField.PHEAD.getFieldNum() - 1);
@@ -714,102 +766,21 @@ public class Conll2SaltMapper extends PepperMapperImpl {
 					// create pointing relation, pointing from phead to
 					// dependent
 					if (proheadID > 0) {
-						// create annotation for pointing relation
-						SAnnotation sAnnotation = SaltFactory.createSAnnotation();
-                                                if (edgeAnnoName != DEPREL){  // custom edge anno name
-                                                    sAnnotation.setName(edgeAnnoName);
-                                                }
-                                                else{						
-                                                    sAnnotation.setName(DEPREL);
-                                                }
-                                        
-						sAnnotation.setValue(fieldValues.get(ConllDataField.PDEPREL.getFieldNum() - 1));
-
-						SPointingRelation sPointingRelation = SaltFactory.createSPointingRelation();
-						sPointingRelation.addAnnotation(sAnnotation);
-                                                if (!(dependenciesHaveLayers)){
-                                                    sPointingRelation.addLayer(lyr);
-                                                }
-						sPointingRelation.setSource(sToken);
-						sPointingRelation.setTarget(sToken);
-						sPointingRelation.setGraph(getDocument().getDocumentGraph());
-
-						if (projectiveModeIsType) {
-							sPointingRelation.setType(PRODEP);
-						} else {
-                                                    if (edgeType != DEP){
-                                                        sPointingRelation.setType(edgeType);
-                                                    }else{
-                                                        sPointingRelation.setType(DEP);
-                                                    }
-                                                    if (edgeAnnoNS != DEP){
-                                                        sAnnotation.setNamespace(edgeAnnoNS);
-                                                    }else{
-                                                        sAnnotation.setNamespace(PROJECTIVE);
-                                                    }                                                    
-						}
-
-						if (proheadID <= tokenID) {
-							sPointingRelation.setSource(tokenList.get(proheadID - 1));
-						} else {
-							pointingRelationMap.put(sPointingRelation, proheadID.toString());
-						}
+						fragment.addDependency(ConllTokenId.of(proheadID), position, SentenceFragment.PROJECTIVE, pool(fieldValues.get(ConllDataField.PDEPREL.getFieldNum() - 1)));
 					}
 				}
 				else if (enhancedEdgeType != null) {
 					String enhancedSpec = fieldValues.get(ConllDataField.PHEAD.getFieldNum() - 1);
-					if (enhancedSpec != null) {						
-						int i = 0;
-						String[] segments = enhancedSpec.split("\\|");					
-						for (String depSpec : segments) {
-							i++;
-							Float eHead;
-							try {
-								eHead = Float.parseFloat(depSpec.substring(0, depSpec.indexOf(':')));
-							} catch (NumberFormatException e) {
-								throw new PepperModuleDataException(this, "Could not parse head id from enhanced dependency specification `" + depSpec + "` for token with id " + tokenIDStr);
-							}
-							if (eHead == 0) {
-								continue;
-							}
-							String[] eDepRels;  // for one defined head multiple relations are possible
-							try {
-                                                                if (splitEnhancedDeprels){
-                                                                    // split relations like "obl:with" into two labels, "obl" and "with"
-                                                                    eDepRels = depSpec.substring(depSpec.indexOf(':') + 1).split(":"); 								
-                                                                }else{  // treat relations like "obl:with" as monolithic labels
-                                                                    eDepRels = depSpec.substring(depSpec.indexOf(':') + 1).split(" "); 								
-                                                                }                                                               
-							} catch (ArrayIndexOutOfBoundsException e) {
-								throw new PepperModuleDataException(this, "Enhanced dependency `" + depSpec + "` does not specify (a) proper relation label(s) or head id for token with id " + tokenIDStr);
-							}
-							for (String eDepRel : eDepRels) {
-                                                                if (primaryDependency == null){
-                                                                    // for ellipsis tokens, set up artificial primary dependency, guaranteed to be distinct from edeps
-                                                                    primaryDependency = Pair.of("0", "_"); 
-                                                                }
-								if ((eHead != Float.parseFloat(primaryDependency.getLeft()) || !eDepRel.equals(primaryDependency.getRight())) || !noDuplicateEdeps) {
-                                                                        Integer eHeadPosition = null;
-                                                                        
-									// create dependency relation											
-									if (eHead <= tokenID) {
-                                                                                eHeadPosition = SentTokMap.get(eHead.toString());
-                                                                                if (edgeAnnoName != DEPREL){  // custom edge anno name
-                                                                                    modifyPointingRelation(null, tokenList.get(eHeadPosition), sToken, enhancedEdgeType, edgeAnnoName, eDepRel);
-                                                                                }
-                                                                                else{
-                                                                                    modifyPointingRelation(null, tokenList.get(eHeadPosition), sToken, enhancedEdgeType, DEPREL, eDepRel);
-                                                                                }
-									} else {
-                                                                            if (edgeAnnoName != DEPREL){  // custom edge anno name
-										pointingRelationMap.put(modifyPointingRelation(null, sToken, sToken, enhancedEdgeType, edgeAnnoName, eDepRel), eHead.toString());
-                                                                            }else{
-										pointingRelationMap.put(modifyPointingRelation(null, sToken, sToken, enhancedEdgeType, DEPREL, eDepRel), eHead.toString());
-                                                                            }
-									}
-									break;  // for the same head only one relation is allowed
-								}
-							}
+					if (enhancedSpec != null) {
+						EnhancedDependencies enhancedDependencies = workspace.enhancedDependencies;
+						// an enhanced dependency duplicating the primary one is suppressed
+						long primaryHead = (noDuplicateEdeps && headID > 0) ? headID : ConllTokenId.NONE;
+						if (!enhancedDependencies.scan(enhancedSpec, splitEnhancedDeprels ? ':' : ' ', primaryHead, annoValue)) {
+							throw new PepperModuleDataException(this, "Could not parse head id from enhanced dependency specification `" + enhancedDependencies.getInvalidSpecification() + "` for token with id " + tokenIDStr);
+						}
+						for (int d = 0; d < enhancedDependencies.size(); d++) {
+							// create dependency relation
+							fragment.addDependency(enhancedDependencies.getHead(d), position, SentenceFragment.ENHANCED, pool(enhancedDependencies.getLabel(d)));
 						}
 					}
 				}
@@ -823,91 +794,13 @@ public class Conll2SaltMapper extends PepperMapperImpl {
                                                 String key = parts[0].trim();
                                                 String val = parts[1].trim();
                                                 if (key.equals(this.markAnnotation)) { // bracket markable like Entity=(person
-
-                                                    // Find single token markables;
-                                                    Matcher m = patDouble.matcher(val);                        
-                                                    while (m.find()) {
-                                                        group = m.group(1);
-                                                        CoNLLCorefMarkable new_mark = new CoNLLCorefMarkable(tok_counter);
-                                                        new_mark.setEnd(tok_counter);
-                                                        new_mark.setAnnoString(group); // save contents of bracketed markable
-                                                        if (this.grpIdIndex > -1){
-                                                            group = group.split("-")[this.grpIdIndex];
-                                                        }
-                                                        new_mark.setGroup(group);  // save only the group part, if a GRP part is specified
-                                                        if (last_mark_by_group.containsKey(group)){
-                                                            if (last_mark_by_group.get(group).size()>0){
-                                                                new_mark.antecedent = last_mark_by_group.get(group).get(last_mark_by_group.get(group).size()-1);
-                                                            }
-                                                        }else{
-                                                            LinkedList<CoNLLCorefMarkable> emptyList = new LinkedList<>();
-                                                            last_mark_by_group.put(group, emptyList);
-                                                        }
-                                                        last_mark_by_group.get(group).push(new_mark);
-                                                        markables.add(new_mark);
-                                                        markstart_dict.get(tok_counter).add(new_mark);
-                                                        markend_dict.get(tok_counter).add(new_mark);
-                                                    }
-                                                    val = val.replaceAll("\\(([^|()]+)\\)","");
-                                                    // Find opening markables;
-                                                    m = patOpen.matcher(val);                        
-                                                    while (m.find()) {
-                                                        group = m.group(1);
-                                                        CoNLLCorefMarkable new_mark = new CoNLLCorefMarkable(tok_counter);
-                                                        new_mark.setAnnoString(group);
-                                                        if (this.grpIdIndex > -1){
-                                                            group = group.split("-")[this.grpIdIndex];
-                                                        }
-                                                        new_mark.setGroup(group);
-                                                        markables.add(new_mark);
-                                                        if (last_mark_by_group.containsKey(group)){
-                                                            if (last_mark_by_group.get(group).size()>0){
-                                                                new_mark.antecedent = last_mark_by_group.get(group).get(last_mark_by_group.get(group).size()-1);
-                                                            }
-                                                        }else{
-                                                            LinkedList<CoNLLCorefMarkable> emptyList = new LinkedList<>();
-                                                            last_mark_by_group.put(group, emptyList);
-                                                        }
-                                                        if (!open_marks_by_group.containsKey(group)){
-                                                            LinkedList<CoNLLCorefMarkable> emptyList = new LinkedList<>();
-                                                            open_marks_by_group.put(group, emptyList);
-                                                        }
-                                                        open_marks_by_group.get(group).push(new_mark);
-                                                        last_mark_by_group.get(group).push(new_mark);
-                                                        mark_text_by_group.put(group,mark_text_by_group.get(group) + tokText + " ");
-                                                        markstart_dict.get(tok_counter).add(new_mark);
-                                                    }
-                                                    val = val.replaceAll("\\(([^|()]+)","");
-                                                    // Find closing markables;
-                                                    m = patClose.matcher(val);       
-                                                    CoNLLCorefMarkable mark;
-                                                    while (m.find()) {
-                                                        group = m.group(1);
-                                                        if (this.grpIdIndex > -1){
-                                                            group = group.split("-")[this.grpIdIndex];
-                                                        }
-                                                        if (open_marks_by_group.containsKey(group)){
-                                                            //mark = last_mark_by_group.get(group).pop();
-                                                            //open_marks_by_group.get(group).removeFirst();
-                                                            mark = open_marks_by_group.get(group).pop();
-                                                        } else{
-                                                            throw new PepperModuleDataException(this, "Found closing bracket " + group + " but group was not opened!");
-                                                        }
-                                                        mark.setText(mark_text_by_group.get(group).trim());
-                                                        mark.setEnd(tok_counter);
-                                                        markend_dict.get(tok_counter).add(mark);
-                                                    }
-                                                    for (String g : mark_text_by_group.keySet()){
-                                                        if (!mark_text_by_group.get(g).equals("")) {
-                                                            mark_text_by_group.put(g,mark_text_by_group.get(g) + tokText + " ");
-                                                        }
-                                                    }
-
+                                                    // markables may cross sentences and are created when merging
+                                                    fragment.addMark(position, val);
                                                 }
                                                 else{  // regular MISC annotation
                                                     SAnnotation sa = SaltFactory.createSAnnotation();
-                                                    sa.setName(key);
-                                                    sa.setValue(val);
+                                                    sa.setName(pool(key));
+                                                    sa.setValue(pool(val));
                                                     if (this.miscNamespace!=null){
                                                         sa.setNamespace(this.miscNamespace);
                                                     }
@@ -917,156 +810,427 @@ public class Conll2SaltMapper extends PepperMapperImpl {
                                         }
                                     }
                                 }
-                            tok_counter++;
 			} // if (tupleSize>1)
 			else
 			{
-                            Iterator<String> iter = tuple.iterator();
-                            String lineString = iter.next();
+                            String lineString = tuple.getString(0);
                             if (lineString.startsWith("#") && lineString.contains("=")){
                                 String parts[] = lineString.split("=",2);
                                 String key = parts[0].replaceFirst("#", "").trim();
                                 String val = parts[1].trim();
                                 if (key.startsWith(this.metaPrefix)){
                                     key = key.replaceFirst(this.metaPrefix, "");
-                                    getDocument().createMetaAnnotation(null, key, val);
+                                    fragment.addMetaAnnotation(key, val);
                                 } else{
                                     if (ArrayUtils.contains(this.sentAnnos, key) || this.sentAnnos == null){
                                         SAnnotation anno = SaltFactory.createSAnnotation();
                                         anno.setName(key);
                                         anno.setValue(val);
-                                        sentAnnos.add(anno);
+                                        fragment.addSentenceAnnotation(anno);
                                     }
                                 }
                             }
-                            
-			  if(!sentenceToken.isEmpty() 
-			      && ((CoNLLImporterProperties) getProperties()).isSentence())
-        {
-          // create span and add span annotation
-          SSpan sSpan = getDocument().getDocumentGraph().createSpan(sentenceToken);
-          sSpan.createAnnotation(null, CAT, S);
-          for (SAnnotation sAnno : sentAnnos){
-              sSpan.addAnnotation(sAnno);
-          }
-          sentAnnos.clear();
-        }
-
-			  sentenceToken.clear();                          
 			} // end if/else tupleSize > 1
+	}
+
+	/**
+	 * Maps the given rows of a sentence, which have been kept by
+	 * {@link TupleRow#toTuple()}, to a fragment. This is done by a worker
+	 * thread.
+	 *
+	 * @param firstRowIndex
+	 *            index of the first of the rows
+	 */
+	private SentenceFragment mapFragment(List<Collection<String>> rows, long firstRowIndex, Workspace workspace) {
+		SentenceFragment fragment = new SentenceFragment();
+		workspace.positions.clear(); // new sentence, clear mapping
+		for (int i = 0; i < rows.size(); i++) {
+			mapRow(fragment, TupleConnectorFactory.fINSTANCE.createTupleRow(rows.get(i)), firstRowIndex + i, workspace);
+		}
+		resolveHeads(fragment, workspace.positions);
+		return (fragment);
+	}
 
-			if ((tupleSize == 1) || (rowIndex == lastTupleIndex)) { // if true,
-																	// file
-				// pointingRelationMap has pointing relations as keys and
-				// corresponding source node IDs as values
-				// set the actual node as source for each pointing relation
-				for (Entry<SPointingRelation, String> entry : pointingRelationMap.entrySet()) {
-                                    Integer position = SentTokMap.get(entry.getValue());
-                                    SToken src = tokenList.get(position);
-                                    entry.getKey().setSource(src); // index=ID-1
+	/**
+	 * Resolves the heads of the dependencies of the given sentence to
+	 * positions in the sentence.
+	 *
+	 * @throws PepperModuleDataException
+	 *             if the sentence contains no token with the id of a head
+	 */
+	private void resolveHeads(SentenceFragment fragment, TokenPositionTable SentTokMap) {
+		int unresolved = fragment.resolveHeads(SentTokMap);
+		if (unresolved >= 0)
+			throw new PepperModuleDataException(this, "Head id " + ConllTokenId.toString(fragment.getHead(unresolved)) + " does not refer to a token of the same sentence. Abort conversion of file " + this.getResourceURI() + ".");
+	}
+	
+	/**
+	 * Returns the primary text from the given offset in the given segment to
+	 * the given end offset of the current token, which is in the current
+	 * segment.
+	 * 
+	 * @param segments
+	 *            the segments of the primary text, the last one is the current
+	 *            one, whose text is not set yet
+	 */
+	private String getCoveredText(List<STextualDS> segments, int segment, int start, StringBuilder primaryText, int end) {
+		int current = segments.size() - 1;
+		if (segment == current)
+			return (primaryText.substring(start, end).trim());
+		StringBuilder text = new StringBuilder(segments.get(segment).getText().substring(start));
+		for (int i = segment + 1; i < current; i++) {
+			text.append(' ').append(segments.get(i).getText());
+		}
+		text.append(' ').append(primaryText, 0, end);
+		return (text.toString().trim());
+	}
+
+	/**
+	 * Creates the {@link STextualDS} for the segment with the given number,
+	 * which is named after {@link CoNLLImporterProperties#PROP_TEXT_NAME} and
+	 * the number, if the document has more than one segment.
+	 */
+	private STextualDS createTextualDS(int segment) {
+		STextualDS sTextualDS = SaltFactory.createSTextualDS();
+		String textName = plan.getTextName();
+		if(textName != null && !textName.isEmpty()) {
+			sTextualDS.setName(segment == 1 ? textName : textName + "_" + segment);
+		}
+		sTextualDS.setGraph(getDocument().getDocumentGraph());
+		return (sTextualDS);
+	}
+
+	/**
+	 * Deletes the last char of the given primary text (a space character) and
+	 * sets it as text for the given {@link STextualDS}. The text is empty, if
+	 * the document has no tokens, e.g. if it only contains comment rows.
+	 */
+	private void setText(STextualDS sTextualDS, StringBuilder primaryText) {
+		if (primaryText.length() > 0)
+			primaryText.deleteCharAt(primaryText.length() - 1);
+		sTextualDS.setText(primaryText.toString());
+	}
+
+	/**
+	 * Checks that the given number of characters can be appended to the
+	 * primary text, so that a document exceeding the maximal length of a text
+	 * is aborted with a message instead of failing with an
+	 * {@link OutOfMemoryError} somewhere later.
+	 * 
+	 * @param rowIndex
+	 *            index of the current row, used for error messages
+	 */
+	private void checkTextLength(StringBuilder primaryText, int length, long rowIndex) {
+		if ((long) primaryText.length() + length > MAX_TEXT_LENGTH) {
+			String errorMessage = String.format("the primary text exceeds the maximal length of %d characters in line %d of input file. Split the file into several documents, for instance by '# newdoc' comments and property " + CoNLLImporterProperties.PROP_SPLIT_NEWDOC + ". Abort conversion of file " + this.getResourceURI() + ".", MAX_TEXT_LENGTH, rowIndex + 1);
+			throw new PepperModuleDataException(this, errorMessage);
+		}
+	}
+
+	/**
+	 * Returns the next row of the given reader.
+	 * 
+	 * @param rowIndex
+	 *            index of the row to be returned, used for error messages
+	 * @return the next row or null, if the input file is completely read
+	 */
+	private TupleRow nextRow(TupleReader tupleReader, long rowIndex) {
+		try {
+			return (tupleReader.nextRow());
+		} catch (IOException e) {
+			String errorMessage = String.format("line %d of input file could not be read. Abort conversion of file " + this.getResourceURI() + ".", rowIndex + 1);
+			throw new PepperModuleDataException(this, errorMessage, e);
+		}
+	}
+
+	/**
+	 * Values of the fields of the current row, which are decoded not before
+	 * they are requested. Dummy values are returned as null.
+	 */
+	private static class FieldValues extends AbstractList<String> {
+		private TupleRow row = null;
+
+		private final String[] values = new String[ConllDataField.values().length];
+
+		private final boolean[] decoded = new boolean[ConllDataField.values().length];
+
+		private void setRow(TupleRow row) {
+			this.row = row;
+			Arrays.fill(this.decoded, false);
+		}
+
+		@Override
+		public String get(int index) {
+			if (!this.decoded[index]) {
+				ConllDataField field = ConllDataField.getFieldByNum(index + 1);
+				this.values[index] = field.isDummy(this.row) ? null : this.row.getString(index);
+				this.decoded[index] = true;
+			}
+			return (this.values[index]);
+		}
+
+		@Override
+		public int size() {
+			return (this.row.size());
+		}
+	}
+
+	/**
+	 * The objects reused for mapping the rows of one sentence after the other.
+	 * A workspace is used by one thread at a time.
+	 */
+	private static class Workspace {
+		private final FieldValues fieldValues = new FieldValues();
+
+		/**
+		 * maps the packed token ids of the sentence to positions in the
+		 * sentence
+		 */
+		private final TokenPositionTable positions = new TokenPositionTable();
+
+		/**
+		 * parsed FEATS values in key=value style
+		 */
+		private final FeatsCache featsCache = new FeatsCache();
+
+		/**
+		 * enhanced dependencies of the DEPS field
+		 */
+		private final EnhancedDependencies enhancedDependencies = new EnhancedDependencies();
+	}
+
+	/**
+	 * Reads the rows of the document and returns them mapped sentence by
+	 * sentence to {@link SentenceFragment}s in the order of the file. A
+	 * sentence ends with the first empty or comment row after its tokens.
+	 * Either each sentence is mapped while its rows are read, or at most a
+	 * given number of sentences is mapped ahead in parallel on the common
+	 * {@link ForkJoinPool}.
+	 */
+	private class FragmentReader {
+		private final TupleReader tupleReader;
+
+		private final int parallelSentences;
+
+		/**
+		 * sentences being mapped, in the order of the file
+		 */
+		private final Deque<ForkJoinTask<SentenceFragment>> pending = new ArrayDeque<ForkJoinTask<SentenceFragment>>();
+
+		/**
+		 * workspaces not used by a sentence being mapped, there are at most as
+		 * many as sentences mapped at once, they are dropped with the reader
+		 */
+		private final ConcurrentLinkedQueue<Workspace> workspaces = new ConcurrentLinkedQueue<Workspace>();
+
+		/**
+		 * index of the next row
+		 */
+		private long rowIndex = 0;
+
+		/**
+		 * stores whether a data row of the current sentence has been read
+		 */
+		private boolean inSentence = false;
+
+		private boolean exhausted = false;
+
+		private FragmentReader(TupleReader tupleReader, int parallelSentences) {
+			this.tupleReader = tupleReader;
+			this.parallelSentences = parallelSentences;
+		}
+
+		/**
+		 * Returns the next sentence, or null if the file is completely read.
+		 */
+		private SentenceFragment next() {
+			if (this.parallelSentences < 1)
+				return (this.mapNext());
+			while (!this.exhausted && this.pending.size() < this.parallelSentences) {
+				ForkJoinTask<SentenceFragment> task = this.submitNext();
+				if (task != null)
+					this.pending.add(task);
+			}
+			ForkJoinTask<SentenceFragment> task = this.pending.poll();
+			return ((task == null) ? null : this.join(task));
+		}
+
+		/**
+		 * Maps the rows of the next sentence, while they are read.
+		 */
+		private SentenceFragment mapNext() {
+			SentenceFragment fragment = null;
+			Workspace workspace = this.borrowWorkspace();
+			try {
+				TupleRow tuple = null;
+				while (!this.exhausted) {
+					if ((tuple = nextRow(this.tupleReader, this.rowIndex)) == null) {
+						this.exhausted = true;
+						break;
+					}
+					if (fragment == null) {
+						fragment = new SentenceFragment();
+						workspace.positions.clear(); // new sentence, clear mapping
+					}
+					mapRow(fragment, tuple, this.rowIndex++, workspace);
+					if (this.endsSentence(tuple))
+						break;
 				}
-				tokenList.clear();
-                                SentTokMap.clear();  // new sentence, clear mapping
-				pointingRelationMap.clear();
+				if (fragment != null)
+					resolveHeads(fragment, workspace.positions);
+			} finally {
+				this.workspaces.add(workspace);
 			}
+			return (fragment);
+		}
 
-		} // for (int rowIndex=0; rowIndex<numOfTuples; rowIndex++)
-		
-		// also add the last sentence
-		if(!sentenceToken.isEmpty() 
-        && ((CoNLLImporterProperties) getProperties()).isSentence())
-    {
-      // create span and add span annotation
-      SSpan sSpan = getDocument().getDocumentGraph().createSpan(sentenceToken);
-      sSpan.createAnnotation(null, CAT, S);
-    }
+		/**
+		 * Reads the rows of the next sentence and starts mapping them, returns
+		 * null if the file is completely read.
+		 */
+		private ForkJoinTask<SentenceFragment> submitNext() {
+			final List<Collection<String>> rows = new ArrayList<Collection<String>>();
+			final long firstRowIndex = this.rowIndex;
+			TupleRow tuple = null;
+			while (!this.exhausted) {
+				if ((tuple = nextRow(this.tupleReader, this.rowIndex)) == null) {
+					this.exhausted = true;
+					break;
+				}
+				// the row is only valid until the next one is read
+				rows.add(tuple.toTuple());
+				this.rowIndex++;
+				if (this.endsSentence(tuple))
+					break;
+			}
+			if (rows.isEmpty())
+				return (null);
+			return (ForkJoinPool.commonPool().submit(() -> {
+				Workspace workspace = this.borrowWorkspace();
+				try {
+					return (mapFragment(rows, firstRowIndex, workspace));
+				} finally {
+					this.workspaces.add(workspace);
+				}
+			}));
+		}
 
-		// ### file is completely read now
+		/**
+		 * Returns an unused workspace, which has to be added to
+		 * {@link #workspaces} again, once the sentence is mapped.
+		 */
+		private Workspace borrowWorkspace() {
+			Workspace workspace = this.workspaces.poll();
+			return ((workspace == null) ? new Workspace() : workspace);
+		}
 
-		// delete last char of primary text (a space character) and set it as
-		// text for TextualDS
-		primaryText.deleteCharAt(primaryText.length() - 1);
-		sTextualDS.setText(primaryText.toString());
-                
-                
-    List<SToken> tokens = getDocument().getDocumentGraph().getTokens();
-    
-    // Import any spans encoded in CoNLL-U MISC field as grouped brackets
-            // add all covered tokens to markables
-        for (CoNLLCorefMarkable mark : markables){
-            for (int i = mark.getStart(); i <= mark.getEnd(); i++){
-                mark.addToken(tokens.get(i));
-            }
-        }
- 
-        // keep a mapping of Markables to SSpans to link edges later
-        LinkedHashMap<CoNLLCorefMarkable,SSpan> marks2spans = new LinkedHashMap<>();
-        
-        // create sSpans for all markables and link to antecedents if necessary
-        for (CoNLLCorefMarkable mark : markables){
-            SSpan sSpan = getDocument().getDocumentGraph().createSpan(mark.getTokens());
-            if (this.markNamespace != null){
-                if (sSpan == null){
-                    throw new PepperModuleDataException(this, "Null span detected, created from markable object: " + mark.toString());
-                }
-                sSpan.addLayer(this.markLayer);
-            }
-            if (this.markLabels != null){
-                int i=0;
-                for (String subval : mark.getAnnoString().split("-")){                
-                    if (this.markLabels.length < i){
-                        break; // undeclared annotation value, ignore
-                    }
-                    String annoName = this.markLabels[i];
-                    i++;
-                    if (annoName.length() == 0 || subval.length()== 0 || annoName.equals("GRP")){
-                        continue;  // ignore zero length annotations
-                    }
-                    if (annoName.equals("EDGE")){
-                        mark.setEdgeType(subval);
-                        continue;
-                    }
-                    SAnnotation annotation = SaltFactory.createSAnnotation();
-                    annotation.setName(annoName);
-                    annotation.setValue(subval);
-                    if (this.markNamespace != null){
-                        annotation.setNamespace(this.markNamespace);
-                    }                
-                    sSpan.addAnnotation(annotation);
-                }
-            }
-            if (mark.getNodeName()!=null){
-                sSpan.setName(mark.getNodeName());
-            }
-            
-            // remember SSpan object belonging to this markID
-            marks2spans.put(mark, sSpan);
-        }
-        
-        // add edges
-        for (CoNLLCorefMarkable mark : markables){
-             if (mark.antecedent != null){
-                SPointingRelation sRel = SaltFactory.createSPointingRelation();  
-                sRel.setSource(marks2spans.get(mark));
-                sRel.setTarget(marks2spans.get(mark.antecedent));
-                sRel.setType("coref");
-                SAnnotation relAnno = SaltFactory.createSAnnotation();
-                relAnno.setName("type");
-                relAnno.setValue(mark.getEdgeType());
-                sRel.addAnnotation(relAnno);
-                if (this.markNamespace != null){
-                    sRel.addLayer(this.markLayer);
-                }
-                getDocument().getDocumentGraph().addRelation(sRel);
-             }
-        }
+		/**
+		 * Returns whether the given row ends the current sentence, that means
+		 * whether it is the first row with a single column after a data row.
+		 */
+		private boolean endsSentence(TupleRow tuple) {
+			if (tuple.size() > 1) {
+				this.inSentence = true;
+				return (false);
+			}
+			boolean ends = this.inSentence;
+			this.inSentence = false;
+			return (ends);
+		}
 
-		if (nonMatchingCategoryNumberLines.size() > 0) {
-			logger.warn("Number of feature values doesn't match number of categories in lines: " + nonMatchingCategoryNumberLines.toString());
+		/**
+		 * Waits for the given sentence to be mapped and returns it. An
+		 * exception thrown while mapping the sentence is rethrown as it is,
+		 * as if the sentence had been mapped sequentially.
+		 */
+		private SentenceFragment join(ForkJoinTask<SentenceFragment> task) {
+			try {
+				return (task.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PepperModuleException(Conll2SaltMapper.this, "Interrupted while mapping the sentences of file " + getResourceURI() + ".", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error)
+					throw (Error) e.getCause();
+				throw new PepperModuleException(Conll2SaltMapper.this, "A sentence of file " + getResourceURI() + " could not be mapped.", e.getCause());
+			}
 		}
-		return (DOCUMENT_STATUS.COMPLETED);
-	} // map
-	
+
+		/**
+		 * Cancels the sentences still being mapped.
+		 */
+		private void close() {
+			for (ForkJoinTask<SentenceFragment> task : this.pending) {
+				task.cancel(false);
+			}
+			this.pending.clear();
+		}
+	}
+
+	/**
+	 * Creates the pointing relations for the dependencies of the given
+	 * sentence, whose tokens have been added to the graph.
+	 *
+	 * @param lyr
+	 *            the layer for projective dependencies, if dependencies do not
+	 *            have a layer per type
+	 */
+	private void createDependencies(SentenceFragment fragment, SLayer lyr) {
+		for (int i = 0; i < fragment.getNumOfDependencies(); i++) {
+			SToken head = fragment.getToken(fragment.getHeadPosition(i));
+			SToken dependent = fragment.getToken(fragment.getDependent(i));
+			String label = fragment.getLabel(i);
+			if (fragment.getKind(i) == SentenceFragment.PRIMARY) {
+				modifyPointingRelation(null, head, dependent, edgeType, edgeAnnoName, label);
+			} else if (fragment.getKind(i) == SentenceFragment.ENHANCED) {
+				modifyPointingRelation(null, head, dependent, enhancedEdgeType, edgeAnnoName, label);
+			} else {
+				createProjectiveRelation(head, dependent, label, lyr);
+			}
+		}
+	}
+
+	/**
+	 * Creates a pointing relation from the projective head to the dependent.
+	 */
+	private void createProjectiveRelation(SToken head, SToken dependent, String label, SLayer lyr) {
+		// create annotation for pointing relation
+		SAnnotation sAnnotation = SaltFactory.createSAnnotation();
+		if (edgeAnnoName != DEPREL) { // custom edge anno name
+			sAnnotation.setName(edgeAnnoName);
+		} else {
+			sAnnotation.setName(DEPREL);
+		}
+		sAnnotation.setValue(label);
+
+		SPointingRelation sPointingRelation = SaltFactory.createSPointingRelation();
+		sPointingRelation.addAnnotation(sAnnotation);
+		if (!(dependenciesHaveLayers)) {
+			sPointingRelation.addLayer(lyr);
+		}
+		sPointingRelation.setSource(head);
+		sPointingRelation.setTarget(dependent);
+		sPointingRelation.setGraph(getDocument().getDocumentGraph());
+
+		if (plan.projectiveModeIsType()) {
+			sPointingRelation.setType(PRODEP);
+		} else {
+			if (edgeType != DEP) {
+				sPointingRelation.setType(edgeType);
+			} else {
+				sPointingRelation.setType(DEP);
+			}
+			if (edgeAnnoNS != DEP) {
+				sAnnotation.setNamespace(edgeAnnoNS);
+			} else {
+				sAnnotation.setNamespace(PROJECTIVE);
+			}
+		}
+	}
+
+
 	private SPointingRelation mapDependency() {
 		return null;
 	}
@@ -19,6 +19,8 @@ package org.corpus_tools.peppermodules.conll;
 
 import java.util.ArrayList;
 
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+
 public enum ConllDataField {
 
 	ID(1, true), FORM(2, true), LEMMA(3, false, "_"), CPOSTAG(4, false, "_"), POSTAG(5, false, "_"), FEATS(6, false, "_"), HEAD(7, true), DEPREL(8, false, "_"), PHEAD(9, false, "_"), PDEPREL(10, false, "_");
@@ -49,6 +51,14 @@ public enum ConllDataField {
 		return dummyValue;
 	}
 
+	/**
+	 * Returns whether the value of this field in the given row is the dummy
+	 * value, without decoding the value.
+	 */
+	public boolean isDummy(TupleRow row) {
+		return row.equals(fieldNum - 1, dummyValue);
+	}
+
 	private static String[] names = null;
 
 	public static String[] getNames() {
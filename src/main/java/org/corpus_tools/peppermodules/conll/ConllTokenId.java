@@ -0,0 +1,133 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+/**
+ * Packs the token ids of the ID and HEAD fields into a long without creating
+ * any objects. An id is either a number like '10' or a decimal like '10.1' as
+ * used for empty nodes in CoNLL-U. The number before the dot is stored in the
+ * upper, the number after the dot in the lower 32 bits, so that packed ids
+ * are exact and compare like the ids they stand for: '10' &lt; '10.1' &lt;
+ * '10.2' &lt; '10.10' &lt; '11'.
+ */
+public final class ConllTokenId {
+	/**
+	 * packed value for a missing or invalid id, which is less than any valid
+	 * id
+	 */
+	public static final long NONE = -1;
+
+	private ConllTokenId() {
+	}
+
+	/**
+	 * Returns the packed id for the given number.
+	 */
+	public static long of(int major) {
+		return (of(major, 0));
+	}
+
+	/**
+	 * Returns the packed id for the given number before and after the dot.
+	 */
+	public static long of(int major, int minor) {
+		if (major < 0 || minor < 0)
+			throw new IllegalArgumentException("A token id cannot be negative, but was " + major + "." + minor + ".");
+		return (((long) major << 32) | minor);
+	}
+
+	/**
+	 * Returns the packed id for the given value.
+	 *
+	 * @throws NumberFormatException
+	 *             if the value is not a valid id
+	 */
+	public static long parse(CharSequence value) {
+		long id = parseOrNone(value);
+		if (id == NONE)
+			throw new NumberFormatException("For input string: \"" + value + "\"");
+		return (id);
+	}
+
+	/**
+	 * Returns the packed id for the given value, or {@link #NONE} if the
+	 * value is null or not a valid id, e.g. '_'.
+	 */
+	public static long parseOrNone(CharSequence value) {
+		if (value == null)
+			return (NONE);
+		return (parseOrNone(value, 0, value.length()));
+	}
+
+	/**
+	 * Returns the packed id for the characters of the given value from start
+	 * (inclusive) to end (exclusive), or {@link #NONE} if they are no valid
+	 * id.
+	 */
+	public static long parseOrNone(CharSequence value, int start, int end) {
+		if (start >= end)
+			return (NONE);
+		long major = 0;
+		long minor = 0;
+		boolean afterDot = false;
+		int digits = 0;
+		for (int i = start; i < end; i++) {
+			char c = value.charAt(i);
+			if (c == '.' && !afterDot && digits > 0) {
+				afterDot = true;
+				digits = 0;
+			} else if (c >= '0' && c <= '9') {
+				if (afterDot)
+					minor = minor * 10 + (c - '0');
+				else
+					major = major * 10 + (c - '0');
+				if (major > Integer.MAX_VALUE || minor > Integer.MAX_VALUE)
+					return (NONE);
+				digits++;
+			} else
+				return (NONE);
+		}
+		if (digits == 0)
+			return (NONE);
+		return (((long) major << 32) | minor);
+	}
+
+	/**
+	 * Returns the number before the dot of the given packed id.
+	 */
+	public static int major(long id) {
+		return ((int) (id >>> 32));
+	}
+
+	/**
+	 * Returns the number after the dot of the given packed id, which is 0 for
+	 * an id without a dot.
+	 */
+	public static int minor(long id) {
+		return ((int) id);
+	}
+
+	/**
+	 * Returns the given packed id as written in the CoNLL file, '10' or '10.1'.
+	 */
+	public static String toString(long id) {
+		if (id == NONE)
+			return ("-1");
+		return (minor(id) == 0 ? Integer.toString(major(id)) : major(id) + "." + minor(id));
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the coreference chains of a document while its markables are read.
+ * Markables are identified by their index in the order they are opened,
+ * groups by an int assigned to their id on first use. The first markable of a
+ * group is the antecedent of all later ones, the markables opened and not
+ * closed yet are kept as a stack per group, so that a closing bracket closes
+ * the markable of its group opened last. All links are kept in primitive
+ * arrays, so that each bracket is handled in constant time.
+ */
+class CorefChainTracker {
+	private static final int NONE = -1;
+
+	/**
+	 * ints assigned to the group ids
+	 */
+	private final Map<String, Integer> groups = new HashMap<String, Integer>();
+
+	/**
+	 * first markable per group
+	 */
+	private int[] firstMarks = new int[16];
+
+	/**
+	 * open markable on top of the stack per group
+	 */
+	private int[] openMarks = new int[16];
+
+	/**
+	 * open markable below the given one in the stack of its group
+	 */
+	private int[] belowMarks = new int[64];
+
+	/**
+	 * Returns the int assigned to the given group id.
+	 */
+	int getGroup(String id) {
+		Integer group = this.groups.get(id);
+		if (group == null) {
+			group = this.groups.size();
+			this.groups.put(id, group);
+			if (group == this.firstMarks.length) {
+				this.firstMarks = Arrays.copyOf(this.firstMarks, 2 * group);
+				this.openMarks = Arrays.copyOf(this.openMarks, 2 * group);
+			}
+			this.firstMarks[group] = NONE;
+			this.openMarks[group] = NONE;
+		}
+		return (group);
+	}
+
+	/**
+	 * Adds the given markable to the given group and returns its antecedent,
+	 * which is the first markable of the group, or -1 for the first one.
+	 */
+	int addMark(int group, int mark) {
+		int antecedent = this.firstMarks[group];
+		if (antecedent == NONE)
+			this.firstMarks[group] = mark;
+		return (antecedent);
+	}
+
+	/**
+	 * Pushes the given markable onto the stack of open markables of the given
+	 * group.
+	 */
+	void open(int group, int mark) {
+		if (mark >= this.belowMarks.length)
+			this.belowMarks = Arrays.copyOf(this.belowMarks, Math.max(mark + 1, 2 * this.belowMarks.length));
+		this.belowMarks[mark] = this.openMarks[group];
+		this.openMarks[group] = mark;
+	}
+
+	/**
+	 * Pops the markable of the given group opened last, returns -1 if the
+	 * group has no open markable.
+	 */
+	int close(int group) {
+		int mark = this.openMarks[group];
+		if (mark != NONE)
+			this.openMarks[group] = this.belowMarks[mark];
+		return (mark);
+	}
+
+	/**
+	 * Returns the markable opened first of all markables not closed yet, or
+	 * -1 if all markables are closed.
+	 */
+	int getFirstOpenMark() {
+		int first = NONE;
+		for (int group = 0; group < this.groups.size(); group++) {
+			for (int mark = this.openMarks[group]; mark != NONE; mark = this.belowMarks[mark]) {
+				if (first == NONE || mark < first)
+					first = mark;
+			}
+		}
+		return (first);
+	}
+}
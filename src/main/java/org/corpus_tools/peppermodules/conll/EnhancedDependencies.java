@@ -0,0 +1,165 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.Arrays;
+
+/**
+ * Scans the DEPS field of CoNLL-U like '2:nsubj|5.1:obl:with' in a single
+ * pass into its enhanced dependencies, one per head. Heads are packed by
+ * {@link ConllTokenId}, the labels are stored as offsets into the value, so
+ * that scanning creates no strings. Dependencies on the root '0' are skipped.
+ * The scanner is reused for every value.
+ * <br/>
+ * A specification may give several labels for a head, separated by a given
+ * character. The first one is taken, unless it duplicates the primary
+ * dependency of the token, then the next one.
+ */
+class EnhancedDependencies {
+	private String value = null;
+
+	private long[] heads = new long[4];
+
+	/**
+	 * offsets of the first character of the labels
+	 */
+	private int[] starts = new int[4];
+
+	/**
+	 * offsets after the last character of the labels
+	 */
+	private int[] ends = new int[4];
+
+	private int size = 0;
+
+	/**
+	 * offsets of the specification, whose head could not be parsed, or -1
+	 */
+	private int invalidStart = -1;
+
+	private int invalidEnd = -1;
+
+	/**
+	 * Scans the given value, replacing the dependencies of the value scanned
+	 * before. Returns false, if a specification has no valid head id, see
+	 * {@link #getInvalidSpecification()}.
+	 *
+	 * @param labelSeparator
+	 *            the character separating several labels of a head, ':' splits
+	 *            'obl:with' into 'obl' and 'with'
+	 * @param primaryHead
+	 *            the packed head id of the primary dependency of the token, or
+	 *            {@link ConllTokenId#NONE}, if there is none or duplicates are
+	 *            allowed
+	 * @param primaryLabel
+	 *            the label of the primary dependency of the token
+	 */
+	boolean scan(String value, char labelSeparator, long primaryHead, String primaryLabel) {
+		this.value = value;
+		this.size = 0;
+		this.invalidStart = -1;
+		int length = value.length();
+		// empty specifications at the end are ignored
+		while (length > 0 && value.charAt(length - 1) == '|') {
+			length--;
+		}
+		int start = 0;
+		while (start < length) {
+			int end = value.indexOf('|', start);
+			if (end < 0 || end > length)
+				end = length;
+			int colon = value.indexOf(':', start);
+			long head = (colon < 0 || colon >= end) ? ConllTokenId.NONE : ConllTokenId.parseOrNone(value, start, colon);
+			if (head == ConllTokenId.NONE) {
+				this.invalidStart = start;
+				this.invalidEnd = end;
+				return (false);
+			}
+			if (head != 0)
+				this.addLabel(head, colon + 1, end, labelSeparator, head == primaryHead ? primaryLabel : null);
+			start = end + 1;
+		}
+		return (true);
+	}
+
+	/**
+	 * Adds the first of the labels between start and end, which does not
+	 * equal the given label.
+	 */
+	private void addLabel(long head, int start, int end, char labelSeparator, String duplicate) {
+		if (start < end) {
+			// empty labels at the end are ignored
+			while (end > start && this.value.charAt(end - 1) == labelSeparator) {
+				end--;
+			}
+			if (start == end)
+				return;
+		}
+		int labelStart = start;
+		while (true) {
+			int labelEnd = this.value.indexOf(labelSeparator, labelStart);
+			if (labelEnd < 0 || labelEnd > end)
+				labelEnd = end;
+			if (duplicate == null || duplicate.length() != labelEnd - labelStart || !this.value.regionMatches(labelStart, duplicate, 0, duplicate.length())) {
+				this.add(head, labelStart, labelEnd);
+				return;
+			}
+			if (labelEnd >= end)
+				return;
+			labelStart = labelEnd + 1;
+		}
+	}
+
+	private void add(long head, int start, int end) {
+		if (this.size == this.heads.length) {
+			this.heads = Arrays.copyOf(this.heads, 2 * this.size);
+			this.starts = Arrays.copyOf(this.starts, 2 * this.size);
+			this.ends = Arrays.copyOf(this.ends, 2 * this.size);
+		}
+		this.heads[this.size] = head;
+		this.starts[this.size] = start;
+		this.ends[this.size] = end;
+		this.size++;
+	}
+
+	/**
+	 * Returns the number of dependencies.
+	 */
+	int size() {
+		return (this.size);
+	}
+
+	/**
+	 * Returns the packed head id of the given dependency.
+	 */
+	long getHead(int index) {
+		return (this.heads[index]);
+	}
+
+	String getLabel(int index) {
+		return (this.value.substring(this.starts[index], this.ends[index]));
+	}
+
+	/**
+	 * Returns the specification of the value scanned last, whose head could
+	 * not be parsed, or null.
+	 */
+	String getInvalidSpecification() {
+		return (this.invalidStart < 0 ? null : this.value.substring(this.invalidStart, this.invalidEnd));
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.Arrays;
+
+/**
+ * Scans the value of a bracket markable annotation in the MISC field like
+ * 'Entity=(e1-person(e2-place)e3)' in a single pass into its brackets: '(e1'
+ * opens, 'e3)' closes and '(e2)' is a markable of a single token. The
+ * brackets are stored in the order of the value as offsets of their contents,
+ * so that scanning neither compiles a regular expression nor creates strings.
+ * The scanner is reused for every value.
+ */
+class EntityBrackets {
+	static final byte OPEN = 0;
+	static final byte CLOSE = 1;
+	static final byte SINGLETON = 2;
+
+	private String value = null;
+
+	private byte[] kinds = new byte[8];
+
+	/**
+	 * offsets of the first character of the contents
+	 */
+	private int[] starts = new int[8];
+
+	/**
+	 * offsets after the last character of the contents
+	 */
+	private int[] ends = new int[8];
+
+	private int size = 0;
+
+	/**
+	 * Scans the given value, replacing the brackets of the value scanned
+	 * before. Characters not belonging to a bracket with contents are
+	 * skipped.
+	 */
+	void scan(String value) {
+		this.value = value;
+		this.size = 0;
+		int length = value.length();
+		int i = 0;
+		while (i < length) {
+			char c = value.charAt(i);
+			if (c == ')' || c == '|') {
+				i++;
+				continue;
+			}
+			int start = (c == '(') ? i + 1 : i;
+			int end = start;
+			while (end < length && !isDelimiter(value.charAt(end))) {
+				end++;
+			}
+			boolean closed = end < length && value.charAt(end) == ')';
+			if (end > start) {
+				if (c == '(')
+					this.add(closed ? SINGLETON : OPEN, start, end);
+				else if (closed)
+					this.add(CLOSE, start, end);
+			}
+			i = closed ? end + 1 : Math.max(end, i + 1);
+		}
+	}
+
+	private static boolean isDelimiter(char c) {
+		return (c == '(' || c == ')' || c == '|');
+	}
+
+	private void add(byte kind, int start, int end) {
+		if (this.size == this.kinds.length) {
+			this.kinds = Arrays.copyOf(this.kinds, 2 * this.size);
+			this.starts = Arrays.copyOf(this.starts, 2 * this.size);
+			this.ends = Arrays.copyOf(this.ends, 2 * this.size);
+		}
+		this.kinds[this.size] = kind;
+		this.starts[this.size] = start;
+		this.ends[this.size] = end;
+		this.size++;
+	}
+
+	/**
+	 * Returns the number of brackets of the value.
+	 */
+	int size() {
+		return (this.size);
+	}
+
+	/**
+	 * Returns {@link #OPEN}, {@link #CLOSE} or {@link #SINGLETON}.
+	 */
+	byte getKind(int index) {
+		return (this.kinds[index]);
+	}
+
+	/**
+	 * Returns the contents of the bracket like 'e1-person' for '(e1-person'.
+	 */
+	String getContent(int index) {
+		return (this.value.substring(this.starts[index], this.ends[index]));
+	}
+
+	/**
+	 * Returns the group of the bracket, that means the part of its contents
+	 * at the given position, if the contents are split at '-', or the whole
+	 * contents for a negative position. A missing part is empty.
+	 */
+	String getGroup(int index, int grpIdIndex) {
+		if (grpIdIndex < 0)
+			return (this.getContent(index));
+		int start = this.starts[index];
+		int end = this.ends[index];
+		for (int part = 0; part < grpIdIndex && start < end; part++) {
+			int separator = this.value.indexOf('-', start);
+			start = (separator < 0 || separator >= end) ? end : separator + 1;
+		}
+		int separator = this.value.indexOf('-', start);
+		if (separator >= 0 && separator < end)
+			end = separator;
+		return (this.value.substring(start, end));
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses FEATS values in CoNLL-U style like 'Case=Nom|Number=Sing' into their
+ * key value pairs. Since a corpus contains only few distinct FEATS values,
+ * the parsed values are cached, so that a repeated value costs a single
+ * lookup. The cache holds at most a given number of values and drops the
+ * least recently used one. The keys and values of the pairs are shared by all
+ * cached values.
+ * <br/>
+ * The cache is not thread safe and meant to be used by a single mapper.
+ */
+class FeatsCache {
+	/**
+	 * default maximal number of cached FEATS values
+	 */
+	static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * the parsed value of an empty FEATS value
+	 */
+	private static final Bundle EMPTY = new Bundle(new String[0]);
+
+	private final int capacity;
+
+	private final LinkedHashMap<String, Bundle> bundles;
+
+	/**
+	 * the keys and values of the cached pairs, so that equal ones are shared
+	 */
+	private final Map<String, String> strings = new HashMap<String, String>();
+
+	FeatsCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	FeatsCache(final int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity of the FEATS cache has to be at least 1, but was " + capacity + ".");
+		this.capacity = capacity;
+		this.bundles = new LinkedHashMap<String, Bundle>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Bundle> eldest) {
+				return (size() > capacity);
+			}
+		};
+	}
+
+	/**
+	 * Returns the key value pairs of the given FEATS value. Pairs are
+	 * separated by '|', key and value by the first '='. Parts without '=' are
+	 * skipped.
+	 */
+	Bundle get(String feats) {
+		Bundle bundle = this.bundles.get(feats);
+		if (bundle == null) {
+			bundle = this.parse(feats);
+			this.bundles.put(feats, bundle);
+		}
+		return (bundle);
+	}
+
+	/**
+	 * Scans the given FEATS value in a single pass.
+	 */
+	private Bundle parse(String feats) {
+		int numOfPairs = 0;
+		for (int i = 0; i < feats.length(); i++) {
+			if (feats.charAt(i) == '=')
+				numOfPairs++;
+		}
+		if (numOfPairs == 0)
+			return (EMPTY);
+		String[] pairs = new String[2 * numOfPairs];
+		int size = 0;
+		int start = 0;
+		int separator = -1;
+		for (int i = 0; i <= feats.length(); i++) {
+			char c = (i < feats.length()) ? feats.charAt(i) : '|';
+			if (c == '=' && separator < 0) {
+				separator = i;
+			} else if (c == '|') {
+				if (separator >= 0) {
+					pairs[size++] = this.share(feats.substring(start, separator));
+					pairs[size++] = this.share(feats.substring(separator + 1, i));
+				}
+				start = i + 1;
+				separator = -1;
+			}
+		}
+		if (size < pairs.length) {
+			String[] trimmed = new String[size];
+			System.arraycopy(pairs, 0, trimmed, 0, size);
+			pairs = trimmed;
+		}
+		return (new Bundle(pairs));
+	}
+
+	/**
+	 * Returns the string equal to the given one, which is already used by a
+	 * cached pair, or the given one.
+	 */
+	private String share(String string) {
+		String shared = this.strings.get(string);
+		if (shared == null) {
+			// keep the shared strings bounded for corpora with many
+			// distinct values, pairs parsed afterwards share new ones
+			if (this.strings.size() >= 4 * this.capacity)
+				this.strings.clear();
+			this.strings.put(string, string);
+			shared = string;
+		}
+		return (shared);
+	}
+
+	/**
+	 * The key value pairs of a FEATS value, which must not be modified.
+	 */
+	static final class Bundle {
+		/**
+		 * keys at even, values at odd indices
+		 */
+		private final String[] pairs;
+
+		private Bundle(String[] pairs) {
+			this.pairs = pairs;
+		}
+
+		/**
+		 * Returns the number of pairs.
+		 */
+		int size() {
+			return (this.pairs.length / 2);
+		}
+
+		String getKey(int index) {
+			return (this.pairs[2 * index]);
+		}
+
+		String getValue(int index) {
+			return (this.pairs[2 * index + 1]);
+		}
+	}
+}
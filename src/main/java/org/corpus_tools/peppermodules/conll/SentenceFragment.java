@@ -0,0 +1,284 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.corpus_tools.salt.common.SToken;
+import org.corpus_tools.salt.core.SAnnotation;
+
+/**
+ * The part of a document mapped from the rows of a single sentence, that
+ * means from the rows after the previous sentence up to and including the row
+ * ending the sentence. A fragment does not depend on the other sentences, so
+ * that it can be mapped by a worker thread, and is merged into the document
+ * graph in the order of the file afterwards.
+ * <br/>
+ * A fragment holds the annotated tokens, which are not added to the graph
+ * yet, their text with offsets relative to the fragment and the dependencies
+ * with heads resolved to positions in the sentence. Everything depending on
+ * the preceding sentences, like the brackets of markables or comments, is
+ * kept as read to be mapped when merging.
+ */
+class SentenceFragment {
+	static final byte PRIMARY = 0;
+	static final byte ENHANCED = 1;
+	static final byte PROJECTIVE = 2;
+
+	private final ArrayList<SToken> tokens = new ArrayList<SToken>();
+
+	/**
+	 * text of the tokens, each followed by a space
+	 */
+	private final StringBuilder text = new StringBuilder();
+
+	private int[] textStarts = new int[32];
+
+	private int[] textEnds = new int[32];
+
+	/**
+	 * indices of the rows of the tokens, used for error messages
+	 */
+	private long[] rows = new long[32];
+
+	/**
+	 * head ids packed by {@link ConllTokenId}
+	 */
+	private long[] heads = new long[32];
+
+	/**
+	 * positions of the heads, once resolved by
+	 * {@link #resolveHeads(TokenPositionTable)}
+	 */
+	private int[] headPositions = null;
+
+	private int[] dependents = new int[32];
+
+	private byte[] kinds = new byte[32];
+
+	private String[] labels = new String[32];
+
+	private int numOfDependencies = 0;
+
+	/**
+	 * positions of the tokens with bracket markable annotations
+	 */
+	private int[] markTokens = new int[8];
+
+	private String[] markValues = new String[8];
+
+	private int numOfMarks = 0;
+
+	private final List<Pair<String, String>> metaAnnotations = new ArrayList<Pair<String, String>>();
+
+	private final List<SAnnotation> sentenceAnnotations = new ArrayList<SAnnotation>();
+
+	private final List<Long> nonMatchingCategoryLines = new ArrayList<Long>();
+
+	private boolean complete = false;
+
+	/**
+	 * Returns the text of the tokens added so far, to which the text of the
+	 * next token is appended.
+	 */
+	StringBuilder getText() {
+		return (this.text);
+	}
+
+	/**
+	 * Adds the next token, whose text has been appended to {@link #getText()}
+	 * from start (inclusive) to end (exclusive), and returns its position in
+	 * the sentence.
+	 */
+	int addToken(SToken token, int textStart, int textEnd, long rowIndex) {
+		int position = this.tokens.size();
+		if (position == this.rows.length) {
+			this.textStarts = Arrays.copyOf(this.textStarts, 2 * position);
+			this.textEnds = Arrays.copyOf(this.textEnds, 2 * position);
+			this.rows = Arrays.copyOf(this.rows, 2 * position);
+		}
+		this.tokens.add(token);
+		this.textStarts[position] = textStart;
+		this.textEnds[position] = textEnd;
+		this.rows[position] = rowIndex;
+		return (position);
+	}
+
+	/**
+	 * Returns the number of tokens.
+	 */
+	int size() {
+		return (this.tokens.size());
+	}
+
+	SToken getToken(int position) {
+		return (this.tokens.get(position));
+	}
+
+	int getTextStart(int position) {
+		return (this.textStarts[position]);
+	}
+
+	int getTextEnd(int position) {
+		return (this.textEnds[position]);
+	}
+
+	long getRow(int position) {
+		return (this.rows[position]);
+	}
+
+	/**
+	 * Adds a dependency of the token at the given position on the head with
+	 * the given packed id.
+	 *
+	 * @param kind
+	 *            {@link #PRIMARY}, {@link #ENHANCED} or {@link #PROJECTIVE}
+	 */
+	void addDependency(long head, int dependent, byte kind, String label) {
+		int size = this.numOfDependencies;
+		if (size == this.heads.length) {
+			this.heads = Arrays.copyOf(this.heads, 2 * size);
+			this.dependents = Arrays.copyOf(this.dependents, 2 * size);
+			this.kinds = Arrays.copyOf(this.kinds, 2 * size);
+			this.labels = Arrays.copyOf(this.labels, 2 * size);
+		}
+		this.heads[size] = head;
+		this.dependents[size] = dependent;
+		this.kinds[size] = kind;
+		this.labels[size] = label;
+		this.numOfDependencies++;
+	}
+
+	/**
+	 * Looks up the positions of the heads of all dependencies in the given
+	 * table of the sentence. Returns the index of the first dependency, whose
+	 * head is no token of the sentence, or -1.
+	 */
+	int resolveHeads(TokenPositionTable positions) {
+		this.headPositions = new int[this.numOfDependencies];
+		for (int i = 0; i < this.numOfDependencies; i++) {
+			this.headPositions[i] = positions.get(this.heads[i]);
+			if (this.headPositions[i] < 0)
+				return (i);
+		}
+		return (-1);
+	}
+
+	int getNumOfDependencies() {
+		return (this.numOfDependencies);
+	}
+
+	/**
+	 * Returns the packed id of the head of the given dependency.
+	 */
+	long getHead(int index) {
+		return (this.heads[index]);
+	}
+
+	int getHeadPosition(int index) {
+		return (this.headPositions[index]);
+	}
+
+	int getDependent(int index) {
+		return (this.dependents[index]);
+	}
+
+	byte getKind(int index) {
+		return (this.kinds[index]);
+	}
+
+	String getLabel(int index) {
+		return (this.labels[index]);
+	}
+
+	/**
+	 * Adds the value of a bracket markable annotation like '(e1-person' of the
+	 * token at the given position.
+	 */
+	void addMark(int token, String value) {
+		if (this.numOfMarks == this.markTokens.length) {
+			this.markTokens = Arrays.copyOf(this.markTokens, 2 * this.numOfMarks);
+			this.markValues = Arrays.copyOf(this.markValues, 2 * this.numOfMarks);
+		}
+		this.markTokens[this.numOfMarks] = token;
+		this.markValues[this.numOfMarks] = value;
+		this.numOfMarks++;
+	}
+
+	int getNumOfMarks() {
+		return (this.numOfMarks);
+	}
+
+	int getMarkToken(int index) {
+		return (this.markTokens[index]);
+	}
+
+	String getMarkValue(int index) {
+		return (this.markValues[index]);
+	}
+
+	void addMetaAnnotation(String name, String value) {
+		this.metaAnnotations.add(Pair.of(name, value));
+	}
+
+	/**
+	 * Returns the meta annotations of the document from comment rows.
+	 */
+	List<Pair<String, String>> getMetaAnnotations() {
+		return (this.metaAnnotations);
+	}
+
+	void addSentenceAnnotation(SAnnotation annotation) {
+		this.sentenceAnnotations.add(annotation);
+	}
+
+	/**
+	 * Returns the annotations of the sentence span from comment rows.
+	 */
+	List<SAnnotation> getSentenceAnnotations() {
+		return (this.sentenceAnnotations);
+	}
+
+	/**
+	 * Adds the number of a line, whose number of feature values does not
+	 * match the number of categories.
+	 */
+	void addNonMatchingCategoryLine(long line) {
+		this.nonMatchingCategoryLines.add(line);
+	}
+
+	List<Long> getNonMatchingCategoryLines() {
+		return (this.nonMatchingCategoryLines);
+	}
+
+	void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns whether the sentence is ended by an empty or comment row, which
+	 * is not the case for the last sentence of a file without a final empty
+	 * row.
+	 */
+	boolean isComplete() {
+		return (this.complete);
+	}
+}
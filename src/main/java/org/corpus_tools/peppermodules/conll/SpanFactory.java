@@ -0,0 +1,77 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.ArrayList;
+
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocumentGraph;
+import org.corpus_tools.salt.common.SSpan;
+import org.corpus_tools.salt.common.SSpanningRelation;
+import org.corpus_tools.salt.common.SToken;
+
+/**
+ * Creates {@link SSpan}s over a range of the tokens of a document given by the
+ * indices of its first and last token, so that the covered tokens do not have
+ * to be collected into a list for each span. The tokens are added in the order
+ * of the document while it is mapped.
+ */
+class SpanFactory {
+	private final SDocumentGraph graph;
+
+	private final ArrayList<SToken> tokens = new ArrayList<SToken>();
+
+	SpanFactory(SDocumentGraph graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Adds the next token of the document.
+	 */
+	void addToken(SToken token) {
+		this.tokens.add(token);
+	}
+
+	/**
+	 * Returns the number of tokens added, which is the index of the next
+	 * token.
+	 */
+	int size() {
+		return (this.tokens.size());
+	}
+
+	/**
+	 * Creates a span over the tokens from the first to the last given index,
+	 * both included, and adds it with its spanning relations to the graph.
+	 * Returns null, if the range is empty, callers have to make sure it is
+	 * not.
+	 */
+	SSpan createSpan(int first, int last) {
+		if (first > last)
+			return (null);
+		SSpan span = SaltFactory.createSSpan();
+		this.graph.addNode(span);
+		for (int i = first; i <= last; i++) {
+			SSpanningRelation relation = SaltFactory.createSSpanningRelation();
+			relation.setSource(span);
+			relation.setTarget(this.tokens.get(i));
+			this.graph.addRelation(relation);
+		}
+		return (span);
+	}
+}
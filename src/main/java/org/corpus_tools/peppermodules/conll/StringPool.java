@@ -0,0 +1,119 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of annotation names and values shared by the mappers of an import,
+ * so that a value like a POS tag occurring millions of times is held only
+ * once. The pool contains at most a given number of strings, when it is full,
+ * strings not pooled yet are returned as they are. The pool can be used by
+ * several threads at once.
+ * <br/>
+ * The pool counts hits and misses and estimates the number of bytes saved by
+ * the hits, see {@link #getBytesSaved()}.
+ */
+public class StringPool {
+	/**
+	 * estimated number of bytes of a string besides its characters, that
+	 * means the headers of the string and its array
+	 */
+	private static final int STRING_OVERHEAD = 40;
+
+	private final int capacity;
+
+	private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<String, String>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder bytesSaved = new LongAdder();
+
+	/**
+	 * Creates a pool holding at most the given number of strings.
+	 */
+	public StringPool(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity of a string pool has to be at least 1, but was " + capacity + ".");
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the pooled string equal to the given one. If there is none, the
+	 * given string is pooled, unless the pool is full, and returned.
+	 */
+	public String intern(String string) {
+		if (string == null)
+			return (null);
+		String pooled = this.strings.get(string);
+		if (pooled != null) {
+			this.hits.increment();
+			if (pooled != string)
+				this.bytesSaved.add(STRING_OVERHEAD + 2L * string.length());
+			return (pooled);
+		}
+		this.misses.increment();
+		if (this.strings.size() >= this.capacity)
+			return (string);
+		pooled = this.strings.putIfAbsent(string, string);
+		return (pooled == null ? string : pooled);
+	}
+
+	/**
+	 * Returns the number of pooled strings.
+	 */
+	public int size() {
+		return (this.strings.size());
+	}
+
+	public int getCapacity() {
+		return (this.capacity);
+	}
+
+	/**
+	 * Returns the number of calls of {@link #intern(String)}, which returned a
+	 * pooled string.
+	 */
+	public long getHits() {
+		return (this.hits.sum());
+	}
+
+	/**
+	 * Returns the number of calls of {@link #intern(String)}, for which no
+	 * string was pooled yet.
+	 */
+	public long getMisses() {
+		return (this.misses.sum());
+	}
+
+	/**
+	 * Returns an estimate of the bytes saved by returning pooled strings
+	 * instead of equal copies, assuming two bytes per character.
+	 */
+	public long getBytesSaved() {
+		return (this.bytesSaved.sum());
+	}
+
+	@Override
+	public String toString() {
+		return ("strings: " + this.size() + "/" + this.capacity + ", hits: " + this.getHits() + ", misses: " + this.getMisses() + ", bytes saved: " + this.getBytesSaved());
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import java.util.Arrays;
+
+/**
+ * Maps the token ids of a sentence, packed by {@link ConllTokenId}, to the
+ * positions of the tokens in the sentence. The table uses open addressing on
+ * primitive arrays, so that neither adding nor looking up an id creates any
+ * objects. The table is meant to be cleared and reused for each sentence.
+ */
+class TokenPositionTable {
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * ids of the slots, {@link ConllTokenId#NONE} for an empty slot
+	 */
+	private long[] ids = new long[INITIAL_CAPACITY];
+
+	private int[] positions = new int[INITIAL_CAPACITY];
+
+	private int size = 0;
+
+	TokenPositionTable() {
+		Arrays.fill(this.ids, ConllTokenId.NONE);
+	}
+
+	/**
+	 * Maps the given packed id to the given position, replacing a position
+	 * mapped before.
+	 */
+	void put(long id, int position) {
+		if (id == ConllTokenId.NONE)
+			throw new IllegalArgumentException("Cannot map an invalid token id.");
+		if (2 * (this.size + 1) > this.ids.length)
+			this.resize(2 * this.ids.length);
+		int slot = this.slot(this.ids, id);
+		if (this.ids[slot] == ConllTokenId.NONE) {
+			this.ids[slot] = id;
+			this.size++;
+		}
+		this.positions[slot] = position;
+	}
+
+	/**
+	 * Returns the position mapped to the given packed id, or -1 if there is
+	 * none.
+	 */
+	int get(long id) {
+		if (id == ConllTokenId.NONE)
+			return (-1);
+		int slot = this.slot(this.ids, id);
+		return (this.ids[slot] == ConllTokenId.NONE ? -1 : this.positions[slot]);
+	}
+
+	int size() {
+		return (this.size);
+	}
+
+	/**
+	 * Removes all mappings, keeping the capacity.
+	 */
+	void clear() {
+		if (this.size > 0) {
+			Arrays.fill(this.ids, ConllTokenId.NONE);
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Returns the slot of the given id in the given slots, or the empty slot
+	 * to put it into. The number of slots is a power of two.
+	 */
+	private int slot(long[] ids, long id) {
+		int mask = ids.length - 1;
+		long hash = id * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (ids[slot] != ConllTokenId.NONE && ids[slot] != id) {
+			slot = (slot + 1) & mask;
+		}
+		return (slot);
+	}
+
+	private void resize(int capacity) {
+		long[] ids = new long[capacity];
+		int[] positions = new int[capacity];
+		Arrays.fill(ids, ConllTokenId.NONE);
+		for (int i = 0; i < this.ids.length; i++) {
+			if (this.ids[i] != ConllTokenId.NONE) {
+				int slot = this.slot(ids, this.ids[i]);
+				ids[slot] = this.ids[i];
+				positions[slot] = this.positions[i];
+			}
+		}
+		this.ids = ids;
+		this.positions = positions;
+	}
+}
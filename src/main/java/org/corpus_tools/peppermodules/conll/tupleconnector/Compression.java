@@ -0,0 +1,159 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZUtils;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.corpus_tools.peppermodules.conll.tupleconnector.impl.ParallelGzipInputStream;
+
+/**
+ * Compression formats a datasource can be stored in. The format of a file is
+ * detected by its magic bytes, the file suffix is only used for naming.
+ */
+public enum Compression {
+	GZIP("gz", 0x1F, 0x8B) {
+		@Override
+		public InputStream open(InputStream in) throws IOException {
+			return (new ParallelGzipInputStream(in));
+		}
+	},
+	BZIP2("bz2", 'B', 'Z', 'h') {
+		@Override
+		public InputStream open(InputStream in) throws IOException {
+			return (new BZip2CompressorInputStream(in, true));
+		}
+	},
+	XZ("xz", 0xFD, '7', 'z', 'X', 'Z', 0x00) {
+		@Override
+		public InputStream open(InputStream in) throws IOException {
+			if (!XZUtils.isXZCompressionAvailable())
+				throw new IOException("Error(TupleReader): reading xz compressed files requires the library org.tukaani:xz.");
+			return (new XZCompressorInputStream(in, true));
+		}
+	},
+	ZSTD("zst", 0x28, 0xB5, 0x2F, 0xFD) {
+		@Override
+		public InputStream open(InputStream in) throws IOException {
+			if (!ZstdUtils.isZstdCompressionAvailable())
+				throw new IOException("Error(TupleReader): reading zstd compressed files requires the library com.github.luben:zstd-jni.");
+			return (new ZstdCompressorInputStream(in));
+		}
+	};
+
+	/**
+	 * maximal number of magic bytes of all formats
+	 */
+	private static final int MAX_MAGIC_LENGTH = 6;
+
+	private final String suffix;
+
+	private final int[] magic;
+
+	Compression(String suffix, int... magic) {
+		this.suffix = suffix;
+		this.magic = magic;
+	}
+
+	/**
+	 * Returns the file suffix of this format without the leading dot.
+	 */
+	public String getSuffix() {
+		return (this.suffix);
+	}
+
+	/**
+	 * Returns a stream decompressing the given stream.
+	 */
+	public abstract InputStream open(InputStream in) throws IOException;
+
+	/**
+	 * Returns the format whose magic bytes start the given bytes, or null if
+	 * there is none.
+	 */
+	public static Compression detect(byte[] bytes, int length) {
+		for (Compression compression : values()) {
+			if (length < compression.magic.length)
+				continue;
+			boolean matches = true;
+			for (int i = 0; i < compression.magic.length && matches; i++) {
+				matches = ((bytes[i] & 0xFF) == compression.magic[i]);
+			}
+			if (matches)
+				return (compression);
+		}
+		return (null);
+	}
+
+	/**
+	 * Returns the format the given file is compressed with, or null if it is
+	 * not compressed.
+	 */
+	public static Compression detect(File file) throws IOException {
+		byte[] bytes = new byte[MAX_MAGIC_LENGTH];
+		int length = 0;
+		try (InputStream in = new FileInputStream(file)) {
+			int read;
+			while (length < bytes.length && (read = in.read(bytes, length, bytes.length - length)) != -1)
+				length += read;
+		}
+		return (detect(bytes, length));
+	}
+
+	/**
+	 * Returns the format whose suffix the given file name ends with, or null
+	 * if there is none.
+	 */
+	public static Compression forFileName(String fileName) {
+		for (Compression compression : values()) {
+			if (fileName.toLowerCase().endsWith("." + compression.suffix))
+				return (compression);
+		}
+		return (null);
+	}
+
+	/**
+	 * Opens the given file and decompresses it, if it is compressed in one of
+	 * the supported formats.
+	 */
+	public static InputStream open(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			in.mark(MAX_MAGIC_LENGTH);
+			byte[] bytes = new byte[MAX_MAGIC_LENGTH];
+			int length = 0;
+			int read;
+			while (length < bytes.length && (read = in.read(bytes, length, bytes.length - length)) != -1)
+				length += read;
+			in.reset();
+			Compression compression = detect(bytes, length);
+			return ((compression == null) ? in : compression.open(in));
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+}
@@ -17,6 +17,8 @@
  */
 package org.corpus_tools.peppermodules.conll.tupleconnector;
 
+import java.util.Collection;
+
 import org.corpus_tools.peppermodules.conll.tupleconnector.impl.TupleConnectorFactoryImpl;
 
 public interface TupleConnectorFactory {
@@ -35,4 +37,49 @@ public interface TupleConnectorFactory {
 	 * @return a new TupleReader-object
 	 */
 	public TupleReader createTupleReader();
+
+	/**
+	 * Returns a new TupleReader-object, which maps the datasource into memory
+	 * and decodes attributes not before they are accessed.
+	 * 
+	 * @return a new TupleReader-object
+	 */
+	public TupleReader createMappedTupleReader();
+
+	/**
+	 * Returns a new TupleReader-object, which streams the datasource of the
+	 * given reader in a background thread and holds at most
+	 * <code>capacity</code> sentence blocks read ahead.
+	 * 
+	 * @param reader
+	 *            the reader to be read in the background
+	 * @param capacity
+	 *            maximal number of sentence blocks read ahead
+	 * @return a new TupleReader-object
+	 */
+	public TupleReader createPrefetchingTupleReader(TupleReader reader, int capacity);
+
+	/**
+	 * Returns a new TupleReader-object, which splits the datasource into
+	 * chunks at empty rows and tokenizes at most <code>parallelism</code>
+	 * chunks in parallel. The rows are returned in the order of the
+	 * datasource.
+	 * 
+	 * @param parallelism
+	 *            maximal number of chunks tokenized in parallel
+	 * @return a new TupleReader-object
+	 */
+	public TupleReader createChunkedTupleReader(int parallelism);
+
+	/**
+	 * Returns a new TupleRow-object over the attributes of the given tuple,
+	 * for instance a row kept by {@link TupleRow#toTuple()}, so that it can be
+	 * processed later or by another thread like a row read by a
+	 * {@link TupleReader}.
+	 * 
+	 * @param tuple
+	 *            the attributes of the row
+	 * @return a new TupleRow-object
+	 */
+	public TupleRow createTupleRow(Collection<String> tuple);
 }
@@ -20,6 +20,7 @@ package org.corpus_tools.peppermodules.conll.tupleconnector;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Classes which implements this interface can read a stream which contains
@@ -37,6 +38,23 @@ public interface TupleReader {
 	 */
 	public void setFile(File inFile);
 
+	/**
+	 * Restricts the datasource to the bytes from <code>start</code>
+	 * (inclusive) to <code>end</code> (exclusive), for instance to read a
+	 * single document of a file containing several ones. Both offsets have to
+	 * be at the beginning of a row or at the end of the file. Offsets of
+	 * compressed files refer to the decompressed bytes. The range is reset by
+	 * {@link #setFile(File)}, offsets used by {@link #seekRow(long)} and
+	 * {@link #seekSentence(long)} still refer to the whole file.
+	 * 
+	 * @param start
+	 *            offset of the first byte to be read
+	 * @param end
+	 *            offset after the last byte to be read, or a negative value
+	 *            for the end of the file
+	 */
+	public void setRange(long start, long end);
+
 	/**
 	 * Returns the
 	 * 
@@ -100,7 +118,9 @@ public interface TupleReader {
 	public Integer getNumOfTuples();
 
 	/**
-	 * Returns the tuple at position index.
+	 * Returns the tuple at position index. If the datasource has not been
+	 * read by {@link #readFile()}, the tuple is read directly from its
+	 * position in the datasource as done by {@link #seekRow(long)}.
 	 * 
 	 * @param index
 	 *            position of tuple to return
@@ -124,28 +144,129 @@ public interface TupleReader {
 	public Integer size();
 
 	/**
-	 * Returns the number of characters contained in this tuple reader.
+	 * Returns the number of characters contained in this tuple reader. For
+	 * datasources with more characters than {@link Integer#MAX_VALUE} use
+	 * {@link #getNumOfChars()}.
 	 * 
 	 * @return number of characters
+	 * @throws ArithmeticException
+	 *             if the number of characters exceeds
+	 *             {@link Integer#MAX_VALUE}
 	 * @author hildebax
 	 */
 	public Integer characterSize();
 
 	/**
 	 * Returns the number of characters contained in the field given by
-	 * <code>fieldIndex</code> of this tuple reader.
+	 * <code>fieldIndex</code> of this tuple reader. For datasources with more
+	 * characters than {@link Integer#MAX_VALUE} use
+	 * {@link #getNumOfChars(int)}.
 	 * 
 	 * @param fieldIndex
 	 *            the index of the field
 	 * @return number of characters in the field
+	 * @throws ArithmeticException
+	 *             if the number of characters exceeds
+	 *             {@link Integer#MAX_VALUE}
 	 * @author hildebax
 	 */
 	public Integer characterSize(Integer fieldIndex);
 
+	/**
+	 * Returns the number of characters contained in this tuple reader.
+	 * 
+	 * @return number of characters
+	 */
+	public long getNumOfChars();
+
+	/**
+	 * Returns the number of characters contained in the field given by
+	 * <code>fieldIndex</code> of this tuple reader.
+	 * 
+	 * @param fieldIndex
+	 *            the index of the field
+	 * @return number of characters in the field
+	 * @throws IndexOutOfBoundsException
+	 *             if no row has an attribute at the given index
+	 */
+	public long getNumOfChars(int fieldIndex);
+
+	/**
+	 * Returns the statistics of the rows read by {@link #readFile()} or since
+	 * the stream of {@link #getSentence()} and {@link #nextRow()} has been
+	 * opened. The statistics are complete, when the datasource is exhausted.
+	 * 
+	 * @return statistics of the rows read
+	 */
+	public TupleStatistics getStatistics();
+
 	/**
 	 * Reads the given file and creates an internal list of read tuples.
 	 * 
 	 * @throws IOException
 	 */
 	public void readFile() throws IOException;
+
+	/**
+	 * Returns the next sentence block of the datasource, that means all tuples
+	 * up to and including the next empty row. In contrast to
+	 * {@link #readFile()}, the datasource is streamed and only the current
+	 * block is held in memory, so that already consumed blocks can be garbage
+	 * collected. The stream is opened with the first call and is independent
+	 * of the tuples read by {@link #readFile()}.
+	 * 
+	 * @return tuples of the next sentence block, or null if the datasource is
+	 *         exhausted
+	 * @throws IOException
+	 */
+	public List<Collection<String>> getSentence() throws IOException;
+
+	/**
+	 * Returns the next row of the datasource. The returned {@link TupleRow} is
+	 * reused for all rows and is only valid until the next call. The
+	 * datasource is streamed the same way as for {@link #getSentence()} and
+	 * both methods continue where the other one stopped.
+	 * 
+	 * @return the next row, or null if the datasource is exhausted
+	 * @throws IOException
+	 */
+	public TupleRow nextRow() throws IOException;
+
+	/**
+	 * Moves the stream of {@link #getSentence()} and {@link #nextRow()} to the
+	 * row with the given index, so that it is returned by the next call of
+	 * {@link #nextRow()}. The position of the row is looked up in an index
+	 * file stored next to the datasource, which is built with a single scan
+	 * of the datasource, if it does not exist or is outdated.
+	 * 
+	 * @param index
+	 *            index of the row, starting with 0
+	 * @throws IOException
+	 * @throws IndexOutOfBoundsException
+	 *             if the datasource has less rows
+	 */
+	public void seekRow(long index) throws IOException;
+
+	/**
+	 * Moves the stream of {@link #getSentence()} and {@link #nextRow()} to the
+	 * sentence block with the given index, so that it is returned by the next
+	 * call of {@link #getSentence()}. The position is looked up as done by
+	 * {@link #seekRow(long)}.
+	 * 
+	 * @param index
+	 *            index of the sentence block, starting with 0
+	 * @throws IOException
+	 * @throws IndexOutOfBoundsException
+	 *             if the datasource has less sentence blocks
+	 */
+	public void seekSentence(long index) throws IOException;
+
+	/**
+	 * Closes the stream opened by {@link #getSentence()} or
+	 * {@link #nextRow()}, if there is one, and the files opened for looking up
+	 * rows by {@link #getTuple(Integer)} and the seek methods.
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException;
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector;
+
+import java.util.Collection;
+
+/**
+ * A row of a datasource read by a {@link TupleReader}. In contrast to a tuple,
+ * a row is a cursor which is reused for all rows of the datasource, its
+ * attributes are views on a shared buffer and are only valid until the next
+ * row is read. Use {@link #getString(int)} or {@link #toTuple()} to keep
+ * them.
+ *
+ * @see TupleReader#nextRow()
+ */
+public interface TupleRow {
+	/**
+	 * Returns the number of attributes of this row.
+	 *
+	 * @return number of attributes
+	 */
+	public int size();
+
+	/**
+	 * Returns a view on the attribute at position index, which is only valid
+	 * until the next row is read.
+	 *
+	 * @param index
+	 *            position of the attribute
+	 * @return view on the attribute
+	 * @throws IndexOutOfBoundsException
+	 */
+	public CharSequence get(int index);
+
+	/**
+	 * Returns the attribute at position index as {@link String}, which stays
+	 * valid when the next row is read.
+	 *
+	 * @param index
+	 *            position of the attribute
+	 * @return the attribute
+	 * @throws IndexOutOfBoundsException
+	 */
+	public String getString(int index);
+
+	/**
+	 * Returns whether the attribute at position index equals the given value,
+	 * without creating a {@link String} for the attribute.
+	 *
+	 * @param index
+	 *            position of the attribute
+	 * @param value
+	 *            the value to compare with
+	 * @return true, if the attribute equals the given value
+	 * @throws IndexOutOfBoundsException
+	 */
+	public boolean equals(int index, CharSequence value);
+
+	/**
+	 * Returns whether this row contains whitespaces only.
+	 *
+	 * @return true, if this row is blank
+	 */
+	public boolean isBlank();
+
+	/**
+	 * Returns a copy of this row as tuple, which stays valid when the next row
+	 * is read.
+	 *
+	 * @return this row as tuple
+	 */
+	public Collection<String> toTuple();
+}
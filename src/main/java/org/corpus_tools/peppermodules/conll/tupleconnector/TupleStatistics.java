@@ -0,0 +1,213 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector;
+
+import java.util.Arrays;
+
+/**
+ * Statistics about the rows read by a {@link TupleReader}, which are
+ * collected while reading. A row with more than one attribute counts as token,
+ * an empty row ends a sentence. All counters are primitives, so that counting
+ * does not create objects.
+ */
+public class TupleStatistics {
+	private long numOfChars = 0;
+
+	/**
+	 * number of characters per field index
+	 */
+	private long[] numOfCharsPerField = new long[16];
+
+	/**
+	 * maximal number of characters of an attribute per field index
+	 */
+	private int[] maxFieldWidths = new int[16];
+
+	/**
+	 * number of fields, that means the maximal number of attributes of a row
+	 */
+	private int numOfFields = 0;
+
+	private long numOfRows = 0;
+
+	private long numOfTokens = 0;
+
+	private long numOfSentences = 0;
+
+	private int maxSentenceLength = 0;
+
+	/**
+	 * number of tokens of the current sentence
+	 */
+	private int sentenceLength = 0;
+
+	/**
+	 * stores whether the next row starts a new sentence
+	 */
+	private boolean sentenceStart = true;
+
+	/**
+	 * Resets all counters.
+	 */
+	public void reset() {
+		this.numOfChars = 0;
+		Arrays.fill(this.numOfCharsPerField, 0);
+		Arrays.fill(this.maxFieldWidths, 0);
+		this.numOfFields = 0;
+		this.numOfRows = 0;
+		this.numOfTokens = 0;
+		this.numOfSentences = 0;
+		this.maxSentenceLength = 0;
+		this.sentenceLength = 0;
+		this.sentenceStart = true;
+	}
+
+	/**
+	 * Counts the attribute of the current row at the given field index.
+	 *
+	 * @param fieldIndex
+	 *            index of the attribute in its row
+	 * @param numOfChars
+	 *            number of characters of the attribute
+	 */
+	public void countAttribute(int fieldIndex, int numOfChars) {
+		if (fieldIndex >= this.numOfCharsPerField.length) {
+			int length = Math.max(fieldIndex + 1, 2 * this.numOfCharsPerField.length);
+			this.numOfCharsPerField = Arrays.copyOf(this.numOfCharsPerField, length);
+			this.maxFieldWidths = Arrays.copyOf(this.maxFieldWidths, length);
+		}
+		if (fieldIndex >= this.numOfFields)
+			this.numOfFields = fieldIndex + 1;
+		this.numOfCharsPerField[fieldIndex] += numOfChars;
+		if (numOfChars > this.maxFieldWidths[fieldIndex])
+			this.maxFieldWidths[fieldIndex] = numOfChars;
+		this.numOfChars += numOfChars;
+	}
+
+	/**
+	 * Counts a row, after its attributes have been counted by
+	 * {@link #countAttribute(int, int)}.
+	 *
+	 * @param size
+	 *            number of attributes of the row
+	 * @param blank
+	 *            whether the row is empty and ends a sentence
+	 */
+	public void countRow(int size, boolean blank) {
+		this.numOfRows++;
+		if (this.sentenceStart) {
+			this.numOfSentences++;
+			this.sentenceStart = false;
+		}
+		if (size > 1) {
+			this.numOfTokens++;
+			this.sentenceLength++;
+			if (this.sentenceLength > this.maxSentenceLength)
+				this.maxSentenceLength = this.sentenceLength;
+		}
+		if (blank) {
+			this.sentenceLength = 0;
+			this.sentenceStart = true;
+		}
+	}
+
+	/**
+	 * Returns the number of characters of all attributes.
+	 */
+	public long getNumOfChars() {
+		return (this.numOfChars);
+	}
+
+	/**
+	 * Returns the number of characters of all attributes at the given field
+	 * index.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if no row has an attribute at the given index
+	 */
+	public long getNumOfChars(int fieldIndex) {
+		this.checkFieldIndex(fieldIndex);
+		return (this.numOfCharsPerField[fieldIndex]);
+	}
+
+	/**
+	 * Returns the maximal number of characters of an attribute.
+	 */
+	public int getMaxFieldWidth() {
+		int max = 0;
+		for (int i = 0; i < this.numOfFields; i++) {
+			max = Math.max(max, this.maxFieldWidths[i]);
+		}
+		return (max);
+	}
+
+	/**
+	 * Returns the maximal number of characters of an attribute at the given
+	 * field index.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             if no row has an attribute at the given index
+	 */
+	public int getMaxFieldWidth(int fieldIndex) {
+		this.checkFieldIndex(fieldIndex);
+		return (this.maxFieldWidths[fieldIndex]);
+	}
+
+	/**
+	 * Returns the maximal number of attributes of a row.
+	 */
+	public int getNumOfFields() {
+		return (this.numOfFields);
+	}
+
+	public long getNumOfRows() {
+		return (this.numOfRows);
+	}
+
+	/**
+	 * Returns the number of rows with more than one attribute.
+	 */
+	public long getNumOfTokens() {
+		return (this.numOfTokens);
+	}
+
+	/**
+	 * Returns the number of sentences, each ended by an empty row or the end
+	 * of the datasource.
+	 */
+	public long getNumOfSentences() {
+		return (this.numOfSentences);
+	}
+
+	/**
+	 * Returns the maximal number of tokens of a sentence.
+	 */
+	public int getMaxSentenceLength() {
+		return (this.maxSentenceLength);
+	}
+
+	private void checkFieldIndex(int fieldIndex) {
+		if (fieldIndex < 0 || fieldIndex >= this.numOfFields)
+			throw new IndexOutOfBoundsException("Error(TupleReader): no field at index " + fieldIndex + ", the rows have " + this.numOfFields + " fields.");
+	}
+
+	@Override
+	public String toString() {
+		return ("rows: " + this.numOfRows + ", tokens: " + this.numOfTokens + ", sentences: " + this.numOfSentences + ", max sentence length: " + this.maxSentenceLength + ", characters: " + this.numOfChars + ", max field width: " + this.getMaxFieldWidth());
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.util.Collection;
+import java.util.Vector;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+
+/**
+ * Base class for {@link TupleRow}s, which stores the bounds of the attributes
+ * in the underlying buffer.
+ */
+abstract class AbstractTupleRow implements TupleRow {
+	/**
+	 * bounds of the attributes, the start of the i-th attribute is at 2i, its
+	 * end at 2i+1
+	 */
+	protected int[] bounds = new int[32];
+
+	/**
+	 * number of attributes
+	 */
+	protected int size = 0;
+
+	/**
+	 * stores whether the row contains whitespaces only
+	 */
+	protected boolean blank = false;
+
+	@Override
+	public int size() {
+		return (this.size);
+	}
+
+	@Override
+	public boolean isBlank() {
+		return (this.blank);
+	}
+
+	@Override
+	public boolean equals(int index, CharSequence value) {
+		CharSequence att = this.get(index);
+		int length = att.length();
+		if (length != value.length())
+			return (false);
+		for (int i = 0; i < length; i++) {
+			if (att.charAt(i) != value.charAt(i))
+				return (false);
+		}
+		return (true);
+	}
+
+	@Override
+	public Collection<String> toTuple() {
+		Collection<String> atts = new Vector<String>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			atts.add(this.getString(i));
+		}
+		return (atts);
+	}
+
+	/**
+	 * Adds an attribute from <code>start</code> (inclusive) to
+	 * <code>end</code> (exclusive).
+	 */
+	protected void addAtt(int start, int end) {
+		if (2 * this.size + 1 >= this.bounds.length) {
+			int[] newBounds = new int[2 * this.bounds.length];
+			System.arraycopy(this.bounds, 0, newBounds, 0, this.bounds.length);
+			this.bounds = newBounds;
+		}
+		this.bounds[2 * this.size] = start;
+		this.bounds[2 * this.size + 1] = end;
+		this.size++;
+	}
+
+	/**
+	 * Removes trailing empty attributes as {@link String#split(String)} does.
+	 */
+	protected void removeTrailingEmptyAtts() {
+		while (this.size > 0 && this.getStart(this.size - 1) == this.getEnd(this.size - 1))
+			this.size--;
+	}
+
+	protected int getStart(int index) {
+		if (index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException("Error(TupleRow): no attribute at index " + index + ", the row has " + this.size + " attributes.");
+		return (this.bounds[2 * index]);
+	}
+
+	protected int getEnd(int index) {
+		if (index < 0 || index >= this.size)
+			throw new IndexOutOfBoundsException("Error(TupleRow): no attribute at index " + index + ", the row has " + this.size + " attributes.");
+		return (this.bounds[2 * index + 1]);
+	}
+
+	@Override
+	public String toString() {
+		return (this.toTuple().toString());
+	}
+}
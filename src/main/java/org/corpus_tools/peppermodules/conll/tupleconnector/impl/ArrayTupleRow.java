@@ -0,0 +1,87 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.util.Collection;
+import java.util.Vector;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+
+/**
+ * A row over attributes which have already been decoded to {@link String}s.
+ */
+class ArrayTupleRow implements TupleRow {
+	private String[] atts = new String[0];
+
+	private boolean blank = false;
+
+	/**
+	 * Sets the given attributes as current row.
+	 */
+	void setAtts(String[] atts) {
+		this.atts = atts;
+		this.blank = false;
+		if (atts.length == 1) {
+			this.blank = true;
+			for (int i = 0; i < atts[0].length() && this.blank; i++) {
+				this.blank = (atts[0].charAt(i) <= ' ');
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return (this.atts.length);
+	}
+
+	@Override
+	public CharSequence get(int index) {
+		return (this.getString(index));
+	}
+
+	@Override
+	public String getString(int index) {
+		if (index < 0 || index >= this.atts.length)
+			throw new IndexOutOfBoundsException("Error(TupleRow): no attribute at index " + index + ", the row has " + this.atts.length + " attributes.");
+		return (this.atts[index]);
+	}
+
+	@Override
+	public boolean equals(int index, CharSequence value) {
+		return (this.getString(index).contentEquals(value));
+	}
+
+	@Override
+	public boolean isBlank() {
+		return (this.blank);
+	}
+
+	@Override
+	public Collection<String> toTuple() {
+		Collection<String> atts = new Vector<String>(this.atts.length);
+		for (String att : this.atts) {
+			atts.add(att);
+		}
+		return (atts);
+	}
+
+	@Override
+	public String toString() {
+		return (this.toTuple().toString());
+	}
+}
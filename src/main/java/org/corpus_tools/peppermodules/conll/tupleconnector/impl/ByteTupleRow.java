@@ -0,0 +1,266 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A row over the UTF-8 encoded bytes of a line. Attributes consisting of
+ * ASCII characters only are read directly from the bytes, all others are
+ * decoded when they are accessed for the first time.
+ */
+class ByteTupleRow extends AbstractTupleRow {
+	/**
+	 * shared strings for attributes consisting of a single ASCII character,
+	 * like the dummy value '_'
+	 */
+	private static final String[] ASCII_STRINGS = new String[128];
+	static {
+		for (int i = 0; i < ASCII_STRINGS.length; i++) {
+			ASCII_STRINGS[i] = String.valueOf((char) i);
+		}
+	}
+
+	/**
+	 * buffer containing the current line
+	 */
+	private ByteBuffer data = null;
+
+	/**
+	 * stores for each attribute, whether it consists of ASCII characters only
+	 */
+	private boolean[] ascii = new boolean[16];
+
+	/**
+	 * already decoded attributes
+	 */
+	private String[] decoded = new String[16];
+
+	/**
+	 * views on the attributes, which are reused for each line
+	 */
+	private Att[] atts = new Att[0];
+
+	/**
+	 * Sets the buffer containing the next row and removes all attributes.
+	 */
+	void reset(ByteBuffer data) {
+		Arrays.fill(this.decoded, 0, Math.min(this.size, this.decoded.length), null);
+		this.data = data;
+		this.size = 0;
+		this.blank = false;
+	}
+
+	/**
+	 * Adds an attribute from <code>start</code> (inclusive) to
+	 * <code>end</code> (exclusive).
+	 *
+	 * @param ascii
+	 *            whether the attribute consists of ASCII characters only
+	 */
+	void addAtt(int start, int end, boolean ascii) {
+		if (this.size >= this.ascii.length) {
+			this.ascii = Arrays.copyOf(this.ascii, 2 * this.ascii.length);
+			this.decoded = Arrays.copyOf(this.decoded, 2 * this.decoded.length);
+		}
+		this.ascii[this.size] = ascii;
+		this.addAtt(start, end);
+	}
+
+	/**
+	 * Sets whether this row contains whitespaces only.
+	 */
+	void setBlank(boolean blank) {
+		this.blank = blank;
+	}
+
+	/**
+	 * Returns the number of characters of the attribute at position index.
+	 */
+	int length(int index) {
+		if (this.ascii[index])
+			return (this.getEnd(index) - this.getStart(index));
+		return (numOfCharacters(this.data, this.getStart(index), this.getEnd(index)));
+	}
+
+	@Override
+	public CharSequence get(int index) {
+		this.getStart(index);
+		if (index >= this.atts.length) {
+			Att[] newAtts = new Att[Math.max(index + 1, 2 * this.atts.length)];
+			System.arraycopy(this.atts, 0, newAtts, 0, this.atts.length);
+			for (int i = this.atts.length; i < newAtts.length; i++) {
+				newAtts[i] = new Att(i);
+			}
+			this.atts = newAtts;
+		}
+		return (this.atts[index]);
+	}
+
+	@Override
+	public String getString(int index) {
+		String att = this.decoded[index];
+		if (att == null) {
+			att = decode(this.data, this.getStart(index), this.getEnd(index));
+			this.decoded[index] = att;
+		}
+		return (att);
+	}
+
+	@Override
+	public boolean equals(int index, CharSequence value) {
+		int start = this.getStart(index);
+		int end = this.getEnd(index);
+		if (!this.ascii[index])
+			return (this.getString(index).contentEquals(value));
+		if (end - start != value.length())
+			return (false);
+		for (int i = start; i < end; i++) {
+			if (this.data.get(i) != value.charAt(i - start))
+				return (false);
+		}
+		return (true);
+	}
+
+	/**
+	 * Returns a copy of this row, whose attributes are decoded not before they
+	 * are accessed.
+	 */
+	@Override
+	public Collection<String> toTuple() {
+		return (new LazyTuple(this.data, Arrays.copyOf(this.bounds, 2 * this.size), Arrays.copyOf(this.decoded, this.size)));
+	}
+
+	/**
+	 * Decodes the bytes of <code>data</code> from <code>start</code>
+	 * (inclusive) to <code>end</code> (exclusive).
+	 */
+	static String decode(ByteBuffer data, int start, int end) {
+		int length = end - start;
+		if (length == 0)
+			return ("");
+		if (length == 1) {
+			byte b = data.get(start);
+			if (b >= 0)
+				return (ASCII_STRINGS[b]);
+		}
+		byte[] bytes = new byte[length];
+		ByteBuffer view = data.duplicate();
+		view.position(start);
+		view.get(bytes);
+		return (new String(bytes, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the number of characters the UTF-8 encoded bytes of
+	 * <code>data</code> from <code>start</code> (inclusive) to
+	 * <code>end</code> (exclusive) are decoded to. Characters outside the
+	 * basic multilingual plane are counted twice, as {@link String#length()}
+	 * does.
+	 */
+	static int numOfCharacters(ByteBuffer data, int start, int end) {
+		int numOfChars = 0;
+		for (int i = start; i < end; i++) {
+			int b = data.get(i) & 0xFF;
+			if ((b & 0xC0) != 0x80)
+				numOfChars++;
+			if (b >= 0xF0)
+				numOfChars++;
+		}
+		return (numOfChars);
+	}
+
+	/**
+	 * A view on the attribute at a fixed index of the current line.
+	 */
+	private class Att implements CharSequence {
+		private final int index;
+
+		private Att(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int length() {
+			if (ascii[this.index])
+				return (getEnd(this.index) - getStart(this.index));
+			return (getString(this.index).length());
+		}
+
+		@Override
+		public char charAt(int i) {
+			if (ascii[this.index])
+				return ((char) data.get(getStart(this.index) + i));
+			return (getString(this.index).charAt(i));
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return (this.toString().subSequence(start, end));
+		}
+
+		@Override
+		public String toString() {
+			return (getString(this.index));
+		}
+	}
+
+	/**
+	 * A tuple whose attributes are decoded from the buffer, when they are
+	 * accessed for the first time.
+	 */
+	private static class LazyTuple extends AbstractList<String> implements RandomAccess {
+		private final ByteBuffer data;
+
+		/**
+		 * the start of the i-th attribute is at 2i, its end at 2i+1
+		 */
+		private final int[] bounds;
+
+		/**
+		 * already decoded attributes
+		 */
+		private final String[] atts;
+
+		private LazyTuple(ByteBuffer data, int[] bounds, String[] atts) {
+			this.data = data;
+			this.bounds = bounds;
+			this.atts = atts;
+		}
+
+		@Override
+		public String get(int index) {
+			String att = this.atts[index];
+			if (att == null) {
+				att = decode(this.data, this.bounds[2 * index], this.bounds[2 * index + 1]);
+				this.atts[index] = att;
+			}
+			return (att);
+		}
+
+		@Override
+		public int size() {
+			return (this.atts.length);
+		}
+	}
+}
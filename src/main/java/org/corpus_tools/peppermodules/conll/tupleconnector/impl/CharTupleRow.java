@@ -0,0 +1,173 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A row over an already decoded line, which is split the same way
+ * {@link String#split(String)} does.
+ */
+class CharTupleRow extends AbstractTupleRow {
+	/**
+	 * characters which make a seperator a regular expression
+	 */
+	private static final String REGEX_META_CHARS = ".$|()[]{}^?*+\\";
+
+	/**
+	 * seperator which departs attributes
+	 */
+	private final String seperator;
+
+	/**
+	 * matcher of the seperator, if it is a regular expression and not a
+	 * literal string
+	 */
+	private final Matcher seperatorMatcher;
+
+	/**
+	 * the current line
+	 */
+	private String line = "";
+
+	/**
+	 * views on the attributes, which are reused for each line
+	 */
+	private Att[] atts = new Att[0];
+
+	CharTupleRow(String seperator) {
+		this.seperator = seperator;
+		this.seperatorMatcher = isLiteral(seperator) ? null : Pattern.compile(seperator).matcher("");
+	}
+
+	String getSeperator() {
+		return (this.seperator);
+	}
+
+	/**
+	 * Returns whether the given seperator can be searched as it is or has to
+	 * be treated as regular expression.
+	 */
+	static boolean isLiteral(String seperator) {
+		for (int i = 0; i < seperator.length(); i++) {
+			if (REGEX_META_CHARS.indexOf(seperator.charAt(i)) != -1)
+				return (false);
+		}
+		return (true);
+	}
+
+	/**
+	 * Sets the given line as current row and splits it into its attributes.
+	 */
+	void setLine(String line) {
+		this.line = line;
+		this.size = 0;
+		int index = 0;
+		if (this.seperatorMatcher == null) {
+			int match;
+			while ((match = line.indexOf(this.seperator, index)) != -1) {
+				this.addAtt(index, match);
+				index = match + this.seperator.length();
+			}
+		} else {
+			Matcher matcher = this.seperatorMatcher.reset(line);
+			while (matcher.find()) {
+				// a zero-width match at the beginning never produces an empty
+				// leading attribute
+				if (matcher.end() == 0)
+					continue;
+				this.addAtt(index, matcher.start());
+				index = matcher.end();
+			}
+		}
+		// if there is no match, the line is the only attribute, even if empty
+		boolean matched = (this.size > 0);
+		this.addAtt(index, line.length());
+		if (matched)
+			this.removeTrailingEmptyAtts();
+
+		this.blank = false;
+		if (this.size == 1) {
+			this.blank = true;
+			for (int i = 0; i < line.length() && this.blank; i++) {
+				this.blank = (line.charAt(i) <= ' ');
+			}
+		}
+	}
+
+	@Override
+	public CharSequence get(int index) {
+		this.getStart(index);
+		if (index >= this.atts.length) {
+			Att[] newAtts = new Att[Math.max(index + 1, 2 * this.atts.length)];
+			System.arraycopy(this.atts, 0, newAtts, 0, this.atts.length);
+			for (int i = this.atts.length; i < newAtts.length; i++) {
+				newAtts[i] = new Att(i);
+			}
+			this.atts = newAtts;
+		}
+		return (this.atts[index]);
+	}
+
+	@Override
+	public String getString(int index) {
+		return (this.line.substring(this.getStart(index), this.getEnd(index)));
+	}
+
+	@Override
+	public boolean equals(int index, CharSequence value) {
+		int start = this.getStart(index);
+		int length = this.getEnd(index) - start;
+		if (value instanceof String)
+			return (length == value.length() && this.line.regionMatches(start, (String) value, 0, length));
+		return (super.equals(index, value));
+	}
+
+	/**
+	 * A view on the attribute at a fixed index of the current line.
+	 */
+	private class Att implements CharSequence {
+		private final int index;
+
+		private Att(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int length() {
+			return (getEnd(this.index) - getStart(this.index));
+		}
+
+		@Override
+		public char charAt(int i) {
+			return (line.charAt(getStart(this.index) + i));
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			int offset = getStart(this.index);
+			return (line.subSequence(offset + start, offset + end));
+		}
+
+		@Override
+		public String toString() {
+			return (getString(this.index));
+		}
+	}
+}
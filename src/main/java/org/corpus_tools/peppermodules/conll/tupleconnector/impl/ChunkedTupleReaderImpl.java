@@ -0,0 +1,336 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.Compression;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+
+/**
+ * A {@link TupleReader} which splits the datasource into chunks of roughly
+ * equal size and tokenizes them in parallel on the common
+ * {@link ForkJoinPool}. Chunks end after an empty row, so that they usually
+ * contain whole sentences. The rows of the chunks are returned by
+ * {@link #nextRow()} and {@link #getSentence()} in the order of the
+ * datasource, so that they are the same as read by {@link TupleReaderImpl}.
+ * At most <code>parallelism</code> chunks are tokenized ahead of the current
+ * row.
+ * <br/>
+ * Compressed datasources and datasources in an encoding, which does not
+ * encode ASCII characters as single bytes, cannot be split and are read
+ * sequentially.
+ */
+public class ChunkedTupleReaderImpl extends TupleReaderImpl {
+	/**
+	 * default maximal number of bytes of a chunk
+	 */
+	public static final int DEFAULT_MAX_CHUNK_SIZE = 1 << 23;
+
+	/**
+	 * minimal number of bytes of a chunk, so that small datasources are not
+	 * split into tiny chunks
+	 */
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+	private static final int BUFFER_SIZE = 1 << 13;
+
+	/**
+	 * maximal number of chunks tokenized ahead
+	 */
+	private final int parallelism;
+
+	private final int maxChunkSize;
+
+	/**
+	 * stores whether the datasource can be split, null if not determined yet
+	 */
+	private Boolean splittable = null;
+
+	/**
+	 * offset of the next chunk to be submitted, negative if streaming has not
+	 * been started
+	 */
+	private long nextChunkStart = -1;
+
+	/**
+	 * offset after the last byte to be read
+	 */
+	private long end = 0;
+
+	private long chunkSize = 0;
+
+	/**
+	 * chunks submitted and not consumed yet, in the order of the datasource
+	 */
+	private final Deque<ForkJoinTask<List<String[]>>> chunks = new ArrayDeque<ForkJoinTask<List<String[]>>>();
+
+	/**
+	 * rows of the chunk currently consumed
+	 */
+	private List<String[]> chunk = null;
+
+	/**
+	 * position of the next row in {@link #chunk}
+	 */
+	private int position = 0;
+
+	/**
+	 * row reused for each consumed row
+	 */
+	private final ArrayTupleRow row = new ArrayTupleRow();
+
+	/**
+	 * Creates a reader tokenizing at most <code>parallelism</code> chunks in
+	 * parallel, each of at most {@value #DEFAULT_MAX_CHUNK_SIZE} bytes.
+	 */
+	public ChunkedTupleReaderImpl(int parallelism) {
+		this(parallelism, DEFAULT_MAX_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a reader tokenizing at most <code>parallelism</code> chunks in
+	 * parallel.
+	 *
+	 * @param parallelism
+	 *            maximal number of chunks tokenized ahead
+	 * @param maxChunkSize
+	 *            maximal number of bytes of a chunk, a chunk is larger only if
+	 *            it contains no empty row
+	 */
+	public ChunkedTupleReaderImpl(int parallelism, int maxChunkSize) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Error(TupleReader): the number of chunks tokenized in parallel has to be at least 1, but was " + parallelism + ".");
+		if (maxChunkSize < 1)
+			throw new IllegalArgumentException("Error(TupleReader): the size of chunks has to be at least 1, but was " + maxChunkSize + ".");
+		this.parallelism = parallelism;
+		this.maxChunkSize = maxChunkSize;
+	}
+
+	@Override
+	public void setFile(File inFile) {
+		super.setFile(inFile);
+		this.splittable = null;
+	}
+
+	@Override
+	public void setEncoding(String encoding) {
+		super.setEncoding(encoding);
+		this.splittable = null;
+	}
+
+	/**
+	 * Returns whether the datasource can be split into chunks, that means
+	 * whether it is not compressed and encodes ASCII characters as single
+	 * bytes.
+	 */
+	private boolean isSplittable() throws IOException {
+		if (this.splittable == null)
+			this.splittable = LineDecoder.isAsciiCompatible(this.getCharset()) && (this.getFile() == null || Compression.detect(this.getFile()) == null);
+		return (this.splittable);
+	}
+
+	@Override
+	public List<Collection<String>> getSentence() throws IOException {
+		if (!this.isSplittable())
+			return (super.getSentence());
+		List<Collection<String>> sentence = null;
+		TupleRow row = null;
+		while ((row = this.nextRow()) != null) {
+			if (sentence == null)
+				sentence = new ArrayList<Collection<String>>();
+			sentence.add(row.toTuple());
+			// an empty row separates sentences
+			if (row.isBlank())
+				break;
+		}
+		return (sentence);
+	}
+
+	@Override
+	public TupleRow nextRow() throws IOException {
+		if (!this.isSplittable())
+			return (super.nextRow());
+		if (this.nextChunkStart < 0)
+			this.start(this.getRangeStart());
+		while (this.chunk == null || this.position >= this.chunk.size()) {
+			this.submitChunks();
+			if (this.chunks.isEmpty())
+				return (null);
+			this.chunk = this.join(this.chunks.poll());
+			this.position = 0;
+		}
+		String[] atts = this.chunk.get(this.position);
+		// release the rows consumed, so that only unconsumed chunks are held
+		this.chunk.set(this.position++, null);
+		this.row.setAtts(atts);
+		for (int i = 0; i < atts.length; i++) {
+			this.countCharacters(i, atts[i].length());
+		}
+		this.countRow(atts.length, this.row.isBlank());
+		return (this.row);
+	}
+
+	@Override
+	protected void seek(long offset) throws IOException {
+		if (!this.isSplittable()) {
+			super.seek(offset);
+			return;
+		}
+		this.close();
+		this.start(offset);
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		for (ForkJoinTask<List<String[]>> task : this.chunks) {
+			task.cancel(false);
+		}
+		this.chunks.clear();
+		this.chunk = null;
+		this.nextChunkStart = -1;
+	}
+
+	/**
+	 * Starts streaming the datasource at the given offset, the size of the
+	 * chunks is chosen, so that the rest of the datasource is split into
+	 * <code>parallelism</code> chunks, if possible.
+	 */
+	private void start(long offset) throws IOException {
+		if (this.getFile() == null)
+			throw new NullPointerException("Error(TupleReader): Cannot read from empty file.");
+		long length = this.getFile().length();
+		this.end = (this.getRangeEnd() < 0) ? length : Math.min(this.getRangeEnd(), length);
+		this.chunkSize = Math.min(this.maxChunkSize, Math.max(MIN_CHUNK_SIZE, (this.end - offset) / this.parallelism + 1));
+		this.nextChunkStart = offset;
+		this.resetStatistics();
+	}
+
+	/**
+	 * Submits chunks until <code>parallelism</code> chunks are pending or the
+	 * end of the datasource is reached.
+	 */
+	private void submitChunks() throws IOException {
+		while (this.chunks.size() < this.parallelism && this.nextChunkStart < this.end) {
+			long end = this.findChunkEnd(this.nextChunkStart + this.chunkSize);
+			this.chunks.add(ForkJoinPool.commonPool().submit(new ChunkTokenizer(this.getFile(), this.getEncoding(), this.getSeperator(), this.nextChunkStart, end)));
+			this.nextChunkStart = end;
+		}
+	}
+
+	/**
+	 * Returns the offset of the first row after the first empty row starting
+	 * at or after the given offset, or the end of the datasource.
+	 */
+	private long findChunkEnd(long offset) throws IOException {
+		if (offset >= this.end)
+			return (this.end);
+		try (RandomAccessFile in = new RandomAccessFile(this.getFile(), "r")) {
+			in.seek(offset);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long position = offset;
+			// the row containing the offset does not count, since its
+			// beginning is unknown
+			boolean lineStart = false;
+			boolean whitespacesOnly = false;
+			int read;
+			while (position < this.end && (read = in.read(buffer, 0, (int) Math.min(buffer.length, this.end - position))) != -1) {
+				for (int i = 0; i < read; i++) {
+					byte b = buffer[i];
+					if (b == '\n') {
+						if (lineStart && whitespacesOnly)
+							return (position + i + 1);
+						lineStart = true;
+						whitespacesOnly = true;
+					} else if (b < 0 || b > ' ')
+						whitespacesOnly = false;
+				}
+				position += read;
+			}
+		}
+		return (this.end);
+	}
+
+	private List<String[]> join(ForkJoinTask<List<String[]>> task) throws IOException {
+		try {
+			return (task.join());
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException)
+				throw new IOException("Error(TupleReader): cannot read file " + this.getFile() + ": " + e.getCause().getMessage(), e.getCause());
+			throw e;
+		}
+	}
+
+	/**
+	 * Tokenizes the rows of a chunk with its own reader.
+	 */
+	private static class ChunkTokenizer implements Callable<List<String[]>> {
+		private final File file;
+
+		private final String encoding;
+
+		private final String seperator;
+
+		private final long start;
+
+		private final long end;
+
+		private ChunkTokenizer(File file, String encoding, String seperator, long start, long end) {
+			this.file = file;
+			this.encoding = encoding;
+			this.seperator = seperator;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public List<String[]> call() throws IOException {
+			TupleReader reader = new MappedTupleReaderImpl();
+			reader.setFile(this.file);
+			reader.setEncoding(this.encoding);
+			reader.setSeperator(this.seperator);
+			reader.setRange(this.start, this.end);
+			List<String[]> rows = new ArrayList<String[]>();
+			try {
+				TupleRow row = null;
+				while ((row = reader.nextRow()) != null) {
+					String[] atts = new String[row.size()];
+					for (int i = 0; i < atts.length; i++) {
+						atts[i] = row.getString(i);
+					}
+					rows.add(atts);
+				}
+			} finally {
+				reader.close();
+			}
+			return (rows);
+		}
+	}
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads lines from a stream in a given charset, just as
+ * {@link java.io.BufferedReader#readLine()} does. The bytes are read into a
+ * pooled buffer and decoded with a reused {@link CharsetDecoder}. For charsets
+ * which encode ASCII characters as single bytes and never use such bytes
+ * within multibyte sequences, runs of ASCII bytes are copied without invoking
+ * the decoder. A BOM at the beginning of the stream is skipped on byte level.
+ */
+class LineDecoder implements Closeable {
+	/**
+	 * size of the byte buffers
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * byte buffers of closed decoders, which are reused by new ones
+	 */
+	private static final BlockingQueue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<ByteBuffer>(8);
+
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+	private static final byte[] UTF16BE_BOM = { (byte) 0xFE, (byte) 0xFF };
+	private static final byte[] UTF16LE_BOM = { (byte) 0xFF, (byte) 0xFE };
+
+	private final InputStream in;
+
+	private final CharsetDecoder decoder;
+
+	/**
+	 * stores whether runs of ASCII bytes can be copied without decoding
+	 */
+	private final boolean asciiFastPath;
+
+	/**
+	 * BOM of the charset to be skipped, or null
+	 */
+	private final byte[] bom;
+
+	/**
+	 * bytes read, but not decoded yet, in write mode
+	 */
+	private ByteBuffer bytes;
+
+	/**
+	 * decoded characters, the ones not returned yet are from
+	 * {@link #charStart} to {@link #charEnd}
+	 */
+	private char[] chars = new char[BUFFER_SIZE];
+
+	private CharBuffer charBuffer = CharBuffer.wrap(this.chars);
+
+	private int charStart = 0;
+
+	private int charEnd = 0;
+
+	private boolean endOfInput = false;
+
+	private boolean started = false;
+
+	LineDecoder(InputStream in, Charset charset) {
+		this(in, charset, true);
+	}
+
+	/**
+	 * @param skipBom
+	 *            whether a BOM at the beginning of the stream is skipped, which
+	 *            should be false, if the stream does not start at the beginning
+	 *            of the datasource
+	 */
+	LineDecoder(InputStream in, Charset charset, boolean skipBom) {
+		this.in = in;
+		this.decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.asciiFastPath = isAsciiCompatible(charset);
+		if (!skipBom)
+			this.bom = null;
+		else if (StandardCharsets.UTF_8.equals(charset))
+			this.bom = UTF8_BOM;
+		else if (StandardCharsets.UTF_16BE.equals(charset))
+			this.bom = UTF16BE_BOM;
+		else if (StandardCharsets.UTF_16LE.equals(charset))
+			this.bom = UTF16LE_BOM;
+		else
+			this.bom = null;
+		ByteBuffer pooled = BUFFER_POOL.poll();
+		this.bytes = (pooled != null) ? pooled : ByteBuffer.allocate(BUFFER_SIZE);
+		this.bytes.clear();
+	}
+
+	/**
+	 * Returns whether the given charset encodes ASCII characters as single
+	 * bytes and never uses bytes below 0x80 in multibyte sequences.
+	 */
+	static boolean isAsciiCompatible(Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset))
+			return (true);
+		if (!charset.canEncode())
+			return (false);
+		CharsetEncoder encoder = charset.newEncoder();
+		if (encoder.maxBytesPerChar() != 1.0f)
+			return (false);
+		byte[] ascii = new byte[128];
+		char[] asciiChars = new char[128];
+		for (int i = 0; i < ascii.length; i++) {
+			ascii[i] = (byte) i;
+			asciiChars[i] = (char) i;
+		}
+		try {
+			ByteBuffer encoded = encoder.encode(CharBuffer.wrap(asciiChars));
+			byte[] encodedBytes = new byte[encoded.remaining()];
+			encoded.get(encodedBytes);
+			return (Arrays.equals(ascii, encodedBytes));
+		} catch (IOException e) {
+			return (false);
+		}
+	}
+
+	/**
+	 * Returns the next line without line break, or null if the stream is
+	 * exhausted. '\n', '\r' and '\r\n' are treated as line breaks.
+	 */
+	String readLine() throws IOException {
+		int searchStart = this.charStart;
+		while (true) {
+			for (int i = searchStart; i < this.charEnd; i++) {
+				char c = this.chars[i];
+				if (c == '\n' || c == '\r') {
+					// a '\r' at the end of the buffer might be followed by '\n'
+					if (c == '\r' && i + 1 == this.charEnd && !this.endOfInput)
+						break;
+					String line = new String(this.chars, this.charStart, i - this.charStart);
+					this.charStart = i + 1;
+					if (c == '\r' && this.charStart < this.charEnd && this.chars[this.charStart] == '\n')
+						this.charStart++;
+					return (line);
+				}
+			}
+			if (this.endOfInput) {
+				if (this.charStart == this.charEnd)
+					return (null);
+				String line = new String(this.chars, this.charStart, this.charEnd - this.charStart);
+				this.charStart = this.charEnd;
+				return (line);
+			}
+			searchStart = this.charEnd - this.charStart;
+			if (searchStart > 0 && this.chars[this.charEnd - 1] == '\r')
+				searchStart--;
+			this.fill();
+		}
+	}
+
+	/**
+	 * Reads and decodes the next bytes of the stream. Characters not returned
+	 * yet are moved to the beginning of the character buffer.
+	 */
+	private void fill() throws IOException {
+		if (this.charStart > 0) {
+			System.arraycopy(this.chars, this.charStart, this.chars, 0, this.charEnd - this.charStart);
+			this.charEnd -= this.charStart;
+			this.charStart = 0;
+		}
+		this.read();
+		if (!this.started) {
+			this.started = true;
+			// skip BOM if exists
+			while (this.bom != null && this.bytes.position() < this.bom.length && !this.endOfInput)
+				this.read();
+			if (this.bom != null && this.bytes.position() >= this.bom.length) {
+				boolean isBom = true;
+				for (int i = 0; i < this.bom.length; i++)
+					isBom &= (this.bytes.get(i) == this.bom[i]);
+				if (isBom) {
+					this.bytes.flip();
+					this.bytes.position(this.bom.length);
+					this.bytes.compact();
+				}
+			}
+		}
+		this.bytes.flip();
+		this.decode();
+		this.bytes.compact();
+	}
+
+	/**
+	 * Reads bytes from the stream into {@link #bytes}.
+	 */
+	private void read() throws IOException {
+		int read = this.in.read(this.bytes.array(), this.bytes.arrayOffset() + this.bytes.position(), this.bytes.remaining());
+		if (read == -1)
+			this.endOfInput = true;
+		else
+			this.bytes.position(this.bytes.position() + read);
+	}
+
+	/**
+	 * Decodes the bytes in {@link #bytes}, which is in read mode, to
+	 * {@link #chars}.
+	 */
+	private void decode() {
+		int maxChars = (int) Math.ceil(this.bytes.remaining() * (double) this.decoder.maxCharsPerByte()) + 1;
+		if (this.chars.length - this.charEnd < maxChars) {
+			this.chars = Arrays.copyOf(this.chars, Math.max(2 * this.chars.length, this.charEnd + maxChars));
+			this.charBuffer = CharBuffer.wrap(this.chars);
+		}
+		if (!this.asciiFastPath) {
+			this.charBuffer.limit(this.chars.length).position(this.charEnd);
+			this.decoder.decode(this.bytes, this.charBuffer, this.endOfInput);
+			if (this.endOfInput) {
+				this.decoder.flush(this.charBuffer);
+				this.decoder.reset();
+			}
+			this.charEnd = this.charBuffer.position();
+			return;
+		}
+
+		byte[] src = this.bytes.array();
+		int offset = this.bytes.arrayOffset();
+		int p = offset + this.bytes.position();
+		int limit = offset + this.bytes.limit();
+		char[] dst = this.chars;
+		int q = this.charEnd;
+		while (p < limit) {
+			// copy ASCII run
+			while (p < limit && src[p] >= 0)
+				dst[q++] = (char) src[p++];
+			if (p == limit)
+				break;
+			// decode non ASCII run, which is complete, if an ASCII byte follows
+			int runEnd = p;
+			while (runEnd < limit && src[runEnd] < 0)
+				runEnd++;
+			boolean complete = (runEnd < limit) || this.endOfInput;
+			this.bytes.limit(runEnd - offset).position(p - offset);
+			this.charBuffer.limit(dst.length).position(q);
+			this.decoder.decode(this.bytes, this.charBuffer, complete);
+			if (complete) {
+				this.decoder.flush(this.charBuffer);
+				this.decoder.reset();
+			}
+			p = offset + this.bytes.position();
+			q = this.charBuffer.position();
+			this.bytes.limit(limit - offset);
+			if (!complete)
+				break;
+		}
+		this.bytes.position(p - offset);
+		this.charEnd = q;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.bytes != null) {
+			BUFFER_POOL.offer(this.bytes);
+			this.bytes = null;
+		}
+		this.in.close();
+	}
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Vector;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.Compression;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+
+/**
+ * A {@link TupleReader} which maps the datasource into memory via
+ * {@link FileChannel#map(MapMode, long, long)} and searches line breaks and
+ * seperators directly on the bytes of the datasource. The attributes of a
+ * tuple are decoded to {@link String}s not before they are accessed. Tuples
+ * are split the same way {@link String#split(String)} does. In case the
+ * seperator is a regular expression and not a literal string, each line is
+ * decoded and split with the compiled expression.
+ * <br/>
+ * Only uncompressed datasources encoded in UTF-8 are mapped, all others are
+ * read as done by {@link TupleReaderImpl}.
+ */
+public class MappedTupleReaderImpl extends TupleReaderImpl {
+	/**
+	 * maximal number of bytes mapped at once, larger files are mapped in
+	 * consecutive windows
+	 */
+	private static final int MAX_WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * BOM character encoded in UTF-8
+	 */
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	/**
+	 * cursor used for streaming the datasource sentence by sentence or row by
+	 * row
+	 */
+	private Cursor sentenceCursor = null;
+
+	/**
+	 * stores whether the datasource can be mapped, null if not determined yet
+	 */
+	private Boolean mappable = null;
+
+	@Override
+	public void setFile(File inFile) {
+		super.setFile(inFile);
+		this.mappable = null;
+	}
+
+	@Override
+	public void setEncoding(String encoding) {
+		super.setEncoding(encoding);
+		this.mappable = null;
+	}
+
+	/**
+	 * Returns whether the datasource can be mapped, that means whether it is
+	 * encoded in UTF-8 and not compressed.
+	 */
+	private boolean isMappable() throws IOException {
+		if (this.mappable == null)
+			this.mappable = StandardCharsets.UTF_8.equals(this.getCharset()) && (this.getFile() == null || Compression.detect(this.getFile()) == null);
+		return (this.mappable);
+	}
+
+	@Override
+	public void readFile() throws IOException {
+		if (!this.isMappable()) {
+			super.readFile();
+			return;
+		}
+		if (this.getFile() == null)
+			throw new NullPointerException("Error(TupleReader): Cannot read from empty file.");
+		tuples = new Vector<Collection<String>>();
+		this.resetStatistics();
+		Cursor cursor = new Cursor();
+		try {
+			TupleRow row = null;
+			while ((row = cursor.nextRow()) != null) {
+				tuples.add(row.toTuple());
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Returns the cursor for streaming the datasource and opens it, if
+	 * necessary.
+	 */
+	private Cursor getSentenceCursor() throws IOException {
+		if (this.sentenceCursor == null) {
+			if (this.getFile() == null)
+				throw new NullPointerException("Error(TupleReader): Cannot read from empty file.");
+			this.resetStatistics();
+			this.sentenceCursor = new Cursor();
+		}
+		return (this.sentenceCursor);
+	}
+
+	@Override
+	public List<Collection<String>> getSentence() throws IOException {
+		if (!this.isMappable())
+			return (super.getSentence());
+		Cursor cursor = this.getSentenceCursor();
+		List<Collection<String>> sentence = null;
+		TupleRow row = null;
+		while ((row = cursor.nextRow()) != null) {
+			if (sentence == null)
+				sentence = new ArrayList<Collection<String>>();
+			sentence.add(row.toTuple());
+			// an empty row separates sentences
+			if (row.isBlank())
+				break;
+		}
+		return (sentence);
+	}
+
+	@Override
+	public TupleRow nextRow() throws IOException {
+		if (!this.isMappable())
+			return (super.nextRow());
+		return (this.getSentenceCursor().nextRow());
+	}
+
+	@Override
+	protected void seek(long offset) throws IOException {
+		if (!this.isMappable()) {
+			super.seek(offset);
+			return;
+		}
+		this.close();
+		this.sentenceCursor = new Cursor(offset);
+		this.resetStatistics();
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		if (this.sentenceCursor != null) {
+			this.sentenceCursor.close();
+			this.sentenceCursor = null;
+		}
+	}
+
+	/**
+	 * Walks through the mapped datasource row by row.
+	 */
+	private class Cursor {
+		private final FileChannel channel;
+
+		private final long fileSize;
+
+		/**
+		 * the currently mapped part of the datasource
+		 */
+		private ByteBuffer window = null;
+
+		/**
+		 * offset of {@link #window} in the datasource
+		 */
+		private long windowStart = 0;
+
+		/**
+		 * position of the next row in {@link #window}
+		 */
+		private int position = 0;
+
+		/**
+		 * seperator as bytes, if it is a literal string
+		 */
+		private final byte[] seperatorBytes;
+
+		/**
+		 * row reused for each line, if the seperator is a literal string
+		 */
+		private final ByteTupleRow byteRow;
+
+		/**
+		 * row reused for each decoded line, if the seperator is a regular
+		 * expression
+		 */
+		private final CharTupleRow charRow;
+
+		private Cursor() throws IOException {
+			this(getRangeStart());
+		}
+
+		/**
+		 * Creates a cursor starting at the given byte offset, which has to be
+		 * the beginning of a row.
+		 */
+		private Cursor(long offset) throws IOException {
+			String seperator = getSeperator();
+			if (CharTupleRow.isLiteral(seperator)) {
+				this.seperatorBytes = seperator.getBytes(StandardCharsets.UTF_8);
+				this.byteRow = new ByteTupleRow();
+				this.charRow = null;
+			} else {
+				this.seperatorBytes = null;
+				this.byteRow = null;
+				this.charRow = new CharTupleRow(seperator);
+			}
+			this.channel = FileChannel.open(getFile().toPath(), StandardOpenOption.READ);
+			try {
+				// the end of the range is treated as end of file
+				this.fileSize = (getRangeEnd() >= 0) ? Math.min(getRangeEnd(), this.channel.size()) : this.channel.size();
+				if (offset > this.channel.size())
+					throw new IOException("Error(TupleReader): offset " + offset + " exceeds file " + getFile() + ".");
+				// an offset behind the range results in no rows
+				this.map(Math.min(offset, this.fileSize));
+				// skip BOM if exists
+				if (offset == 0 && this.window.limit() >= UTF8_BOM.length && this.window.get(0) == UTF8_BOM[0] && this.window.get(1) == UTF8_BOM[1] && this.window.get(2) == UTF8_BOM[2])
+					this.position = UTF8_BOM.length;
+			} catch (IOException | RuntimeException e) {
+				this.channel.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Maps the part of the datasource starting at the given offset.
+		 */
+		private void map(long start) throws IOException {
+			this.window = this.channel.map(MapMode.READ_ONLY, start, Math.min(this.fileSize - start, MAX_WINDOW_SIZE));
+			this.windowStart = start;
+			this.position = 0;
+		}
+
+		/**
+		 * Returns the next row of the datasource or null, if the datasource is
+		 * exhausted. The returned row is reused for the next call.
+		 */
+		private TupleRow nextRow() throws IOException {
+			if (this.windowStart + this.position >= this.fileSize)
+				return (null);
+			int lineEnd = this.findLineEnd();
+			TupleRow row = null;
+			if (this.byteRow != null) {
+				this.split(this.position, lineEnd);
+				row = this.byteRow;
+			} else {
+				this.charRow.setLine(ByteTupleRow.decode(this.window, this.position, lineEnd));
+				for (int i = 0; i < this.charRow.size(); i++) {
+					countCharacters(i, this.charRow.get(i).length());
+				}
+				row = this.charRow;
+			}
+			countRow(row.size(), row.isBlank());
+
+			// skip line break, '\r\n' counts as one
+			this.position = lineEnd;
+			if (lineEnd < this.window.limit()) {
+				this.position++;
+				if (this.window.get(lineEnd) == '\r' && this.position < this.window.limit() && this.window.get(this.position) == '\n')
+					this.position++;
+			}
+			return (row);
+		}
+
+		/**
+		 * Returns the position of the line break ending the current row. The
+		 * window is moved, if the row is not completely mapped.
+		 */
+		private int findLineEnd() throws IOException {
+			while (true) {
+				int limit = this.window.limit();
+				for (int i = this.position; i < limit; i++) {
+					byte b = this.window.get(i);
+					// a '\r' at the end of the window might be followed by '\n'
+					if (b == '\n' || (b == '\r' && (i + 1 < limit || this.windowStart + limit >= this.fileSize)))
+						return (i);
+				}
+				if (this.windowStart + limit >= this.fileSize)
+					return (limit);
+				if (this.position == 0)
+					throw new IOException("Error(TupleReader): line at byte " + this.windowStart + " of file " + getFile() + " exceeds " + MAX_WINDOW_SIZE + " bytes.");
+				this.map(this.windowStart + this.position);
+			}
+		}
+
+		/**
+		 * Splits the row from <code>start</code> to <code>end</code> at the
+		 * literal seperator into {@link #byteRow}.
+		 */
+		private void split(int start, int end) {
+			ByteBuffer window = this.window;
+			byte[] seperatorBytes = this.seperatorBytes;
+			byte first = seperatorBytes[0];
+			ByteTupleRow row = this.byteRow;
+			row.reset(window);
+			int attStart = start;
+			boolean ascii = true;
+			for (int i = start; i < end; i++) {
+				byte b = window.get(i);
+				if (b < 0) {
+					ascii = false;
+				} else if (b == first && this.matchesSeperator(i, end)) {
+					row.addAtt(attStart, i, ascii);
+					i += seperatorBytes.length - 1;
+					attStart = i + 1;
+					ascii = true;
+				}
+			}
+			// if there is no seperator, the line is the only attribute, even
+			// if empty
+			boolean matched = (row.size() > 0);
+			row.addAtt(attStart, end, ascii);
+			if (matched)
+				row.removeTrailingEmptyAtts();
+
+			if (row.size() == 1) {
+				boolean blank = true;
+				for (int i = start; i < end && blank; i++) {
+					byte b = window.get(i);
+					blank = (b >= 0 && b <= ' ');
+				}
+				row.setBlank(blank);
+			}
+			for (int i = 0; i < row.size(); i++) {
+				countCharacters(i, row.length(i));
+			}
+		}
+
+		/**
+		 * Returns whether the seperator starts at the given position.
+		 */
+		private boolean matchesSeperator(int position, int end) {
+			if (position + this.seperatorBytes.length > end)
+				return (false);
+			for (int i = 1; i < this.seperatorBytes.length; i++) {
+				if (this.window.get(position + i) != this.seperatorBytes[i])
+					return (false);
+			}
+			return (true);
+		}
+
+		private void close() throws IOException {
+			// already mapped windows stay valid after closing the channel
+			this.window = null;
+			this.channel.close();
+		}
+	}
+}
@@ -0,0 +1,274 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+/**
+ * Decompresses a stream consisting of one or more gzip members. Members
+ * whose compressed size is stored in their header, as done by bgzip (BGZF),
+ * can be separated without inflating them and are inflated in parallel, while
+ * their output is still returned in order. As soon as a member without its
+ * size is found, the rest of the stream is inflated sequentially.
+ */
+public class ParallelGzipInputStream extends InputStream {
+	/**
+	 * maximal number of members inflated at once, which bounds the memory
+	 * used for decompressing ahead
+	 */
+	private static final int MAX_PENDING_MEMBERS = 2 * Runtime.getRuntime().availableProcessors();
+
+	private static final int ID1 = 0x1F;
+	private static final int ID2 = 0x8B;
+	private static final int CM_DEFLATE = 8;
+	private static final int FHCRC = 0x02;
+	private static final int FEXTRA = 0x04;
+	private static final int FNAME = 0x08;
+	private static final int FCOMMENT = 0x10;
+
+	/**
+	 * length of the fixed part of a member header
+	 */
+	private static final int HEADER_LENGTH = 10;
+
+	/**
+	 * length of a member trailer containing CRC32 and ISIZE
+	 */
+	private static final int TRAILER_LENGTH = 8;
+
+	private static final byte[] EMPTY = new byte[0];
+
+	/**
+	 * the compressed stream
+	 */
+	private final InputStream in;
+
+	/**
+	 * members being inflated, in the order of the stream
+	 */
+	private final Deque<Future<byte[]>> pendingMembers = new ArrayDeque<Future<byte[]>>();
+
+	/**
+	 * stream inflating the rest of the compressed stream, once a member
+	 * without size has been found
+	 */
+	private InputStream sequentialIn = null;
+
+	/**
+	 * stores whether all members have been read from {@link #in}
+	 */
+	private boolean endOfMembers = false;
+
+	/**
+	 * the inflated member currently returned
+	 */
+	private byte[] member = EMPTY;
+
+	private int memberPos = 0;
+
+	public ParallelGzipInputStream(InputStream in) {
+		this.in = in;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int read = this.read(b, 0, 1);
+		return ((read == -1) ? -1 : (b[0] & 0xFF));
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0)
+			return (0);
+		while (true) {
+			if (this.memberPos < this.member.length) {
+				int read = Math.min(len, this.member.length - this.memberPos);
+				System.arraycopy(this.member, this.memberPos, b, off, read);
+				this.memberPos += read;
+				return (read);
+			}
+			if (!this.nextMember())
+				return ((this.sequentialIn != null) ? this.sequentialIn.read(b, off, len) : -1);
+		}
+	}
+
+	/**
+	 * Makes the next inflated member the current one, returns false if there
+	 * is none.
+	 */
+	private boolean nextMember() throws IOException {
+		while (!this.endOfMembers && this.pendingMembers.size() < MAX_PENDING_MEMBERS)
+			this.readMember();
+		Future<byte[]> next = this.pendingMembers.poll();
+		if (next == null)
+			return (false);
+		try {
+			this.member = next.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Error(TupleReader): interrupted while decompressing.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("Error(TupleReader): gzip member could not be decompressed.", e.getCause());
+		}
+		this.memberPos = 0;
+		return (true);
+	}
+
+	/**
+	 * Reads the next member from {@link #in} and starts inflating it.
+	 */
+	private void readMember() throws IOException {
+		byte[] header = new byte[HEADER_LENGTH];
+		int length = this.readFully(header, 0, HEADER_LENGTH);
+		if (length == 0) {
+			this.endOfMembers = true;
+			return;
+		}
+		int blockSize = -1;
+		if (length == HEADER_LENGTH && (header[0] & 0xFF) == ID1 && (header[1] & 0xFF) == ID2 && header[2] == CM_DEFLATE && (header[3] & FEXTRA) != 0) {
+			byte[] xlen = new byte[2];
+			length = this.readFully(xlen, 0, 2);
+			header = Arrays.copyOf(header, HEADER_LENGTH + length);
+			System.arraycopy(xlen, 0, header, HEADER_LENGTH, length);
+			if (length == 2) {
+				int extraLength = (xlen[0] & 0xFF) | ((xlen[1] & 0xFF) << 8);
+				header = Arrays.copyOf(header, HEADER_LENGTH + 2 + extraLength);
+				length = this.readFully(header, HEADER_LENGTH + 2, extraLength);
+				header = Arrays.copyOf(header, HEADER_LENGTH + 2 + length);
+				if (length == extraLength)
+					blockSize = getBlockSize(header, HEADER_LENGTH + 2, extraLength);
+			}
+		}
+		if (blockSize < header.length + TRAILER_LENGTH) {
+			// the size of the member is unknown, inflate the rest sequentially
+			this.sequentialIn = new GzipCompressorInputStream(new SequenceInputStream(new ByteArrayInputStream(header), this.in), true);
+			this.endOfMembers = true;
+			return;
+		}
+		final byte[] compressed = Arrays.copyOf(header, blockSize);
+		if (this.readFully(compressed, header.length, blockSize - header.length) != blockSize - header.length)
+			throw new EOFException("Error(TupleReader): unexpected end of gzip member.");
+		this.pendingMembers.add(ForkJoinPool.commonPool().submit(() -> inflate(compressed)));
+	}
+
+	/**
+	 * Returns the size of the member stored in the BGZF subfield of the given
+	 * extra field, or -1 if there is none.
+	 */
+	private static int getBlockSize(byte[] extra, int offset, int length) {
+		int pos = offset;
+		while (pos + 4 <= offset + length) {
+			int subfieldLength = (extra[pos + 2] & 0xFF) | ((extra[pos + 3] & 0xFF) << 8);
+			if (extra[pos] == 'B' && extra[pos + 1] == 'C' && subfieldLength == 2 && pos + 6 <= offset + length)
+				return (((extra[pos + 4] & 0xFF) | ((extra[pos + 5] & 0xFF) << 8)) + 1);
+			pos += 4 + subfieldLength;
+		}
+		return (-1);
+	}
+
+	/**
+	 * Inflates the given complete member and checks its trailer.
+	 */
+	private static byte[] inflate(byte[] compressed) throws IOException {
+		int flags = compressed[3] & 0xFF;
+		int pos = HEADER_LENGTH;
+		if ((flags & FEXTRA) != 0)
+			pos += 2 + ((compressed[pos] & 0xFF) | ((compressed[pos + 1] & 0xFF) << 8));
+		if ((flags & FNAME) != 0)
+			while (compressed[pos++] != 0)
+				;
+		if ((flags & FCOMMENT) != 0)
+			while (compressed[pos++] != 0)
+				;
+		if ((flags & FHCRC) != 0)
+			pos += 2;
+		int trailer = compressed.length - TRAILER_LENGTH;
+		int size = readInt(compressed, trailer + 4);
+		byte[] inflated = new byte[size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed, pos, trailer - pos);
+			int inflatedLength = 0;
+			while (!inflater.finished() && inflatedLength < size) {
+				int n = inflater.inflate(inflated, inflatedLength, size - inflatedLength);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				inflatedLength += n;
+			}
+			if (inflatedLength != size || (size > 0 && !inflater.finished() && inflater.inflate(new byte[1]) > 0))
+				throw new ZipException("Error(TupleReader): corrupt gzip member, size does not match.");
+		} catch (DataFormatException e) {
+			throw new ZipException("Error(TupleReader): corrupt gzip member: " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+		CRC32 crc = new CRC32();
+		crc.update(inflated, 0, inflated.length);
+		if ((int) crc.getValue() != readInt(compressed, trailer))
+			throw new ZipException("Error(TupleReader): corrupt gzip member, CRC does not match.");
+		return (inflated);
+	}
+
+	private static int readInt(byte[] bytes, int pos) {
+		return ((bytes[pos] & 0xFF) | ((bytes[pos + 1] & 0xFF) << 8) | ((bytes[pos + 2] & 0xFF) << 16) | ((bytes[pos + 3] & 0xFF) << 24));
+	}
+
+	/**
+	 * Reads up to <code>length</code> bytes from {@link #in} and returns the
+	 * number of bytes read, which is less only at the end of the stream.
+	 */
+	private int readFully(byte[] b, int off, int length) throws IOException {
+		int total = 0;
+		while (total < length) {
+			int read = this.in.read(b, off + total, length - total);
+			if (read == -1)
+				break;
+			total += read;
+		}
+		return (total);
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (Future<byte[]> pending : this.pendingMembers)
+			pending.cancel(false);
+		this.pendingMembers.clear();
+		if (this.sequentialIn != null)
+			this.sequentialIn.close();
+		this.in.close();
+	}
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleStatistics;
+
+/**
+ * A {@link TupleReader} which streams the datasource of another
+ * {@link TupleReader} in a background thread. The background thread reads and
+ * decodes sentence blocks into a bounded queue, while the caller of
+ * {@link #getSentence()} or {@link #nextRow()} consumes them. When the queue
+ * is full, the background thread waits, so that at most the given number of
+ * blocks is held in memory. After {@link #close()} the datasource is streamed
+ * from its beginning again. All other methods are passed to the wrapped
+ * reader.
+ * <br/>
+ * The character counts of the wrapped reader are updated by the background
+ * thread and are complete not before the datasource is exhausted.
+ */
+public class PrefetchingTupleReaderImpl implements TupleReader {
+	/**
+	 * maximal number of rows of a block, so that a datasource without empty
+	 * rows does not result in a single block
+	 */
+	private static final int MAX_BLOCK_SIZE = 1024;
+
+	/**
+	 * milliseconds the background thread waits for space in the queue before
+	 * checking whether the reader has been closed
+	 */
+	private static final long OFFER_TIMEOUT = 100;
+
+	/**
+	 * the wrapped reader, which is read by the background thread
+	 */
+	private final TupleReader reader;
+
+	/**
+	 * maximal number of blocks in {@link #blocks}
+	 */
+	private final int capacity;
+
+	/**
+	 * blocks read by the background thread and not consumed yet
+	 */
+	private BlockingQueue<Block> blocks = null;
+
+	private Thread producer = null;
+
+	/**
+	 * signals the background thread to stop
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * the block currently consumed
+	 */
+	private Block block = null;
+
+	/**
+	 * position of the next row in {@link #block}
+	 */
+	private int position = 0;
+
+	/**
+	 * row reused for each consumed row
+	 */
+	private final ArrayTupleRow row = new ArrayTupleRow();
+
+	/**
+	 * Creates a reader prefetching the datasource of the given reader.
+	 *
+	 * @param reader
+	 *            the reader to be wrapped
+	 * @param capacity
+	 *            maximal number of sentence blocks read ahead
+	 */
+	public PrefetchingTupleReaderImpl(TupleReader reader, int capacity) {
+		if (reader == null)
+			throw new NullPointerException("Error(TupleReader): Cannot prefetch from an empty reader.");
+		if (capacity < 1)
+			throw new IllegalArgumentException("Error(TupleReader): the number of prefetched sentence blocks has to be at least 1, but was " + capacity + ".");
+		this.reader = reader;
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void setFile(File inFile) {
+		this.reader.setFile(inFile);
+	}
+
+	@Override
+	public void setRange(long start, long end) {
+		this.reader.setRange(start, end);
+	}
+
+	@Override
+	public File getFile() {
+		return (this.reader.getFile());
+	}
+
+	@Override
+	public void setSeperator(String seperator) {
+		this.reader.setSeperator(seperator);
+	}
+
+	@Override
+	public String getSeperator() {
+		return (this.reader.getSeperator());
+	}
+
+	@Override
+	public void setEncoding(String encoding) {
+		this.reader.setEncoding(encoding);
+	}
+
+	@Override
+	public String getEncoding() {
+		return (this.reader.getEncoding());
+	}
+
+	@Override
+	public Collection<Collection<String>> getTuples() {
+		return (this.reader.getTuples());
+	}
+
+	@Override
+	public Collection<String> getTuple() throws IOException {
+		return (this.reader.getTuple());
+	}
+
+	@Override
+	public Integer getNumOfTuples() {
+		return (this.reader.getNumOfTuples());
+	}
+
+	@Override
+	public Collection<String> getTuple(Integer index) throws IOException {
+		return (this.reader.getTuple(index));
+	}
+
+	@Override
+	public void restart() {
+		this.reader.restart();
+	}
+
+	@Override
+	public Integer size() {
+		return (this.reader.size());
+	}
+
+	@Override
+	public Integer characterSize() {
+		return (this.reader.characterSize());
+	}
+
+	@Override
+	public Integer characterSize(Integer fieldIndex) {
+		return (this.reader.characterSize(fieldIndex));
+	}
+
+	@Override
+	public long getNumOfChars() {
+		return (this.reader.getNumOfChars());
+	}
+
+	@Override
+	public long getNumOfChars(int fieldIndex) {
+		return (this.reader.getNumOfChars(fieldIndex));
+	}
+
+	@Override
+	public TupleStatistics getStatistics() {
+		return (this.reader.getStatistics());
+	}
+
+	@Override
+	public void readFile() throws IOException {
+		this.reader.readFile();
+	}
+
+	@Override
+	public List<Collection<String>> getSentence() throws IOException {
+		List<Collection<String>> sentence = null;
+		TupleRow row = null;
+		while ((row = this.nextRow()) != null) {
+			if (sentence == null)
+				sentence = new ArrayList<Collection<String>>();
+			sentence.add(row.toTuple());
+			// an empty row separates sentences
+			if (row.isBlank())
+				break;
+		}
+		return (sentence);
+	}
+
+	@Override
+	public TupleRow nextRow() throws IOException {
+		if (this.producer == null)
+			this.startProducer();
+		while (this.block == null || this.position >= this.block.rows.size()) {
+			if (this.block == Block.END)
+				return (null);
+			if (this.block != null && this.block.error != null)
+				throw new IOException("Error(TupleReader): cannot read file " + this.getFile() + ": " + this.block.error.getMessage(), this.block.error);
+			try {
+				this.block = this.blocks.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Error(TupleReader): interrupted while waiting for file " + this.getFile() + ".", e);
+			}
+			this.position = 0;
+		}
+		this.row.setAtts(this.block.rows.get(this.position++));
+		return (this.row);
+	}
+
+	@Override
+	public void seekRow(long index) throws IOException {
+		this.stopProducer();
+		this.reader.seekRow(index);
+	}
+
+	@Override
+	public void seekSentence(long index) throws IOException {
+		this.stopProducer();
+		this.reader.seekSentence(index);
+	}
+
+	/**
+	 * Starts the background thread reading the wrapped reader.
+	 */
+	private void startProducer() {
+		this.blocks = new ArrayBlockingQueue<Block>(this.capacity);
+		this.producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				produce();
+			}
+		}, "TupleReader prefetching " + this.getFile());
+		this.producer.setDaemon(true);
+		this.producer.start();
+	}
+
+	/**
+	 * Reads the wrapped reader block by block into {@link #blocks}, until it
+	 * is exhausted or this reader is closed.
+	 */
+	private void produce() {
+		try {
+			Block block = new Block();
+			TupleRow row = null;
+			while (!this.closed && (row = this.reader.nextRow()) != null) {
+				String[] atts = new String[row.size()];
+				for (int i = 0; i < atts.length; i++) {
+					atts[i] = row.getString(i);
+				}
+				block.rows.add(atts);
+				if (row.isBlank() || block.rows.size() >= MAX_BLOCK_SIZE) {
+					this.put(block);
+					block = new Block();
+				}
+			}
+			if (!block.rows.isEmpty())
+				this.put(block);
+			this.put(Block.END);
+		} catch (IOException | RuntimeException e) {
+			Block error = new Block();
+			error.error = e;
+			try {
+				this.put(error);
+			} catch (InterruptedException e1) {
+				// nobody waits for the error anymore
+			}
+		} catch (InterruptedException e) {
+			// the reader has been closed
+		}
+	}
+
+	/**
+	 * Puts the given block into {@link #blocks} and waits, while the queue is
+	 * full and this reader has not been closed.
+	 */
+	private void put(Block block) throws InterruptedException {
+		while (!this.closed) {
+			if (this.blocks.offer(block, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+				return;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.stopProducer();
+		this.reader.close();
+	}
+
+	/**
+	 * Stops the background thread and discards all blocks read ahead, so that
+	 * the next call of {@link #nextRow()} starts a new background thread at
+	 * the current position of the wrapped reader.
+	 */
+	private void stopProducer() {
+		this.closed = true;
+		if (this.producer != null) {
+			this.blocks.clear();
+			try {
+				this.producer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.producer = null;
+			this.blocks = null;
+			this.block = null;
+		}
+		this.closed = false;
+	}
+
+	/**
+	 * A block of rows read by the background thread, or the error it failed
+	 * with.
+	 */
+	private static class Block {
+		/**
+		 * marks the end of the datasource
+		 */
+		private static final Block END = new Block();
+
+		private final List<String[]> rows = new ArrayList<String[]>();
+
+		private Exception error = null;
+	}
+}
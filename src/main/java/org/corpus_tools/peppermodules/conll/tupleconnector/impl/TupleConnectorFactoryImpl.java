@@ -17,8 +17,11 @@
  */
 package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
 
+import java.util.Collection;
+
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleConnectorFactory;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleWriter;
 
 public class TupleConnectorFactoryImpl implements TupleConnectorFactory {
@@ -74,4 +77,29 @@ public class TupleConnectorFactoryImpl implements TupleConnectorFactory {
 		return (tupleReader);
 	}
 
+	@Override
+	public TupleReader createMappedTupleReader() {
+		TupleReader tupleReader = new MappedTupleReaderImpl();
+		return (tupleReader);
+	}
+
+	@Override
+	public TupleReader createPrefetchingTupleReader(TupleReader reader, int capacity) {
+		TupleReader tupleReader = new PrefetchingTupleReaderImpl(reader, capacity);
+		return (tupleReader);
+	}
+
+	@Override
+	public TupleReader createChunkedTupleReader(int parallelism) {
+		TupleReader tupleReader = new ChunkedTupleReaderImpl(parallelism);
+		return (tupleReader);
+	}
+
+	@Override
+	public TupleRow createTupleRow(Collection<String> tuple) {
+		ArrayTupleRow tupleRow = new ArrayTupleRow();
+		tupleRow.setAtts(tuple.toArray(new String[tuple.size()]));
+		return (tupleRow);
+	}
+
 }
@@ -0,0 +1,397 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.corpus_tools.peppermodules.conll.tupleconnector.Compression;
+
+/**
+ * Byte offsets of all rows and sentences of a datasource, which are stored in
+ * a sidecar file next to the datasource with suffix {@value #SUFFIX}. The
+ * index is built with a single scan of the datasource and is rebuilt, when
+ * the datasource has been modified. Offsets of compressed datasources refer
+ * to the decompressed bytes.
+ * <br/>
+ * Rows and sentences are counted the same way as by
+ * {@link org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader#nextRow()}
+ * and
+ * {@link org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader#getSentence()},
+ * that means a sentence ends with an empty row. Offsets are only looked up in
+ * the sidecar file, so that even the index of a huge datasource is not held
+ * in memory, neither while it is built. The sidecar file is kept open for
+ * lookups until the index is closed.
+ */
+public class TupleIndex implements Closeable {
+	/**
+	 * suffix of the sidecar file appended to the name of the datasource
+	 */
+	public static final String SUFFIX = ".idx";
+
+	/**
+	 * suffix of the temporary files written next to the sidecar file, while
+	 * the index is built
+	 */
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/**
+	 * "CONLLIDX" in ASCII
+	 */
+	private static final long MAGIC = 0x434F4E4C4C494458L;
+
+	private static final int VERSION = 1;
+
+	/**
+	 * position of the length and counts in the header, after magic, version
+	 * and length and modification time of the datasource
+	 */
+	private static final long COUNTS_POSITION = 8 + 4 + 8 + 8;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	/**
+	 * the sidecar file
+	 */
+	private final File indexFile;
+
+	/**
+	 * position of the row offsets in {@link #indexFile}
+	 */
+	private final long dataStart;
+
+	private final long length;
+
+	private final long numOfRows;
+
+	private final long numOfSentences;
+
+	/**
+	 * channel of {@link #indexFile} for looking up offsets, opened with the
+	 * first lookup, or null
+	 */
+	private FileChannel channel = null;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(8);
+
+	private TupleIndex(File indexFile, long dataStart, long length, long numOfRows, long numOfSentences) {
+		this.indexFile = indexFile;
+		this.dataStart = dataStart;
+		this.length = length;
+		this.numOfRows = numOfRows;
+		this.numOfSentences = numOfSentences;
+	}
+
+	/**
+	 * Returns the sidecar file of the given datasource.
+	 */
+	public static File getIndexFile(File source) {
+		return (new File(source.getPath() + SUFFIX));
+	}
+
+	/**
+	 * Returns whether the given file name is the name of a sidecar file or of
+	 * a temporary file written, while the sidecar file is built.
+	 */
+	public static boolean isIndexFileName(String fileName) {
+		return (fileName.endsWith(SUFFIX) || (fileName.contains(SUFFIX) && fileName.endsWith(TEMP_SUFFIX)));
+	}
+
+	/**
+	 * Returns the index of the given datasource. The index is loaded from the
+	 * sidecar file, or built and stored into it, if it does not exist or is
+	 * outdated. If the sidecar file cannot be written, the index is stored in
+	 * a temporary file.
+	 *
+	 * @param source
+	 *            the datasource
+	 * @param charset
+	 *            charset of the datasource, which has to encode ASCII
+	 *            characters as single bytes
+	 * @param seperator
+	 *            seperator which departs attributes
+	 * @throws IOException
+	 */
+	public static TupleIndex get(File source, Charset charset, String seperator) throws IOException {
+		File indexFile = getIndexFile(source);
+		TupleIndex index = load(indexFile, source, charset, seperator);
+		if (index == null) {
+			try {
+				index = build(source, charset, seperator, indexFile);
+			} catch (IOException e) {
+				if (!indexFile.getAbsoluteFile().getParentFile().canWrite()) {
+					File tempFile = File.createTempFile(source.getName(), SUFFIX);
+					tempFile.deleteOnExit();
+					index = build(source, charset, seperator, tempFile);
+				} else
+					throw e;
+			}
+		}
+		return (index);
+	}
+
+	/**
+	 * Loads the given sidecar file and returns null, if it does not exist or
+	 * does not match the datasource.
+	 */
+	private static TupleIndex load(File indexFile, File source, Charset charset, String seperator) throws IOException {
+		if (!indexFile.isFile())
+			return (null);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readLong() != MAGIC || in.readInt() != VERSION)
+				return (null);
+			if (in.readLong() != source.length() || in.readLong() != source.lastModified())
+				return (null);
+			long length = in.readLong();
+			long numOfRows = in.readLong();
+			long numOfSentences = in.readLong();
+			long dataStart = in.readLong();
+			if (!seperator.equals(in.readUTF()) || !charset.name().equals(in.readUTF()))
+				return (null);
+			if (indexFile.length() != dataStart + 8 * (numOfRows + numOfSentences))
+				return (null);
+			return (new TupleIndex(indexFile, dataStart, length, numOfRows, numOfSentences));
+		} catch (IOException e) {
+			// an incomplete sidecar file is built again
+			return (null);
+		}
+	}
+
+	/**
+	 * Writes the header of a sidecar file, the length, counts and position of
+	 * the offsets are filled in by {@link #writeCounts(File, long, long, long, long)}.
+	 */
+	private static void writeHeader(DataOutputStream out, File source, Charset charset, String seperator) throws IOException {
+		out.writeLong(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(source.length());
+		out.writeLong(source.lastModified());
+		out.writeLong(0);
+		out.writeLong(0);
+		out.writeLong(0);
+		out.writeLong(0);
+		out.writeUTF(seperator);
+		out.writeUTF(charset.name());
+	}
+
+	private static void writeCounts(File indexFile, long length, long numOfRows, long numOfSentences, long dataStart) throws IOException {
+		try (RandomAccessFile out = new RandomAccessFile(indexFile, "rw")) {
+			out.seek(COUNTS_POSITION);
+			out.writeLong(length);
+			out.writeLong(numOfRows);
+			out.writeLong(numOfSentences);
+			out.writeLong(dataStart);
+		}
+	}
+
+	/**
+	 * Scans the datasource and writes its index to the given file. Row offsets
+	 * are written while scanning, sentence offsets are written to a second
+	 * temporary file and appended afterwards, the counts are filled into the
+	 * header at last.
+	 */
+	private static TupleIndex build(File source, Charset charset, String seperator, File indexFile) throws IOException {
+		if (!LineDecoder.isAsciiCompatible(charset))
+			throw new UnsupportedEncodingException("Error(TupleReader): an index can only be built for encodings, which encode ASCII characters as single bytes, but not for " + charset.name() + ".");
+		// temporary files of unique names, so that readers building the same
+		// index concurrently do not write into each other's files
+		File directory = indexFile.getAbsoluteFile().getParentFile();
+		File tempFile = File.createTempFile(indexFile.getName(), TEMP_SUFFIX, directory);
+		File sentencesFile;
+		try {
+			sentencesFile = File.createTempFile(indexFile.getName(), ".sentences" + TEMP_SUFFIX, directory);
+		} catch (IOException e) {
+			tempFile.delete();
+			throw e;
+		}
+		long length = 0;
+		long numOfRows = 0;
+		long dataStart = 0;
+		long numOfSentences = 0;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE)); DataOutputStream sentences = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sentencesFile), BUFFER_SIZE)); InputStream in = Compression.open(source)) {
+			writeHeader(out, source, charset, seperator);
+			dataStart = out.size();
+
+			CharTupleRow row = new CharTupleRow(seperator);
+			StringBuilder line = new StringBuilder();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			// a BOM is not part of the first row
+			int skip = 0;
+			boolean lineStart = true;
+			boolean sentenceStart = true;
+			boolean pendingCR = false;
+			boolean whitespacesOnly = true;
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				if (length == 0 && StandardCharsets.UTF_8.equals(charset) && read >= UTF8_BOM.length && Arrays.equals(UTF8_BOM, Arrays.copyOf(buffer, UTF8_BOM.length)))
+					skip = UTF8_BOM.length;
+				for (int i = 0; i < read; i++) {
+					byte b = buffer[i];
+					if (pendingCR) {
+						pendingCR = false;
+						// '\r\n' counts as one line break
+						if (b == '\n')
+							continue;
+					}
+					if (lineStart) {
+						if (sentenceStart) {
+							sentences.writeLong(numOfRows);
+							numOfSentences++;
+							sentenceStart = false;
+						}
+						out.writeLong(length + i);
+						numOfRows++;
+						lineStart = false;
+						whitespacesOnly = true;
+						line.setLength(0);
+					}
+					if (b == '\n' || b == '\r') {
+						sentenceStart = isBlank(row, whitespacesOnly, line);
+						lineStart = true;
+						pendingCR = (b == '\r');
+					} else if (whitespacesOnly && (length + i) >= skip) {
+						if (b >= 0 && b <= ' ')
+							line.append((char) b);
+						else
+							whitespacesOnly = false;
+					}
+				}
+				length += read;
+			}
+			sentences.close();
+			Files.copy(sentencesFile.toPath(), out);
+		} catch (IOException | RuntimeException e) {
+			tempFile.delete();
+			throw e;
+		} finally {
+			sentencesFile.delete();
+		}
+		writeCounts(tempFile, length, numOfRows, numOfSentences, dataStart);
+		if ((indexFile.exists() && !indexFile.delete()) || !tempFile.renameTo(indexFile)) {
+			tempFile.delete();
+			throw new IOException("Error(TupleReader): cannot write index file " + indexFile + ".");
+		}
+		return (new TupleIndex(indexFile, dataStart, length, numOfRows, numOfSentences));
+	}
+
+	/**
+	 * Returns whether a row is empty, the same way as {@link CharTupleRow}
+	 * decides it.
+	 */
+	private static boolean isBlank(CharTupleRow row, boolean whitespacesOnly, CharSequence line) {
+		if (!whitespacesOnly)
+			return (false);
+		row.setLine(line.toString());
+		return (row.isBlank());
+	}
+
+	/**
+	 * Returns the number of bytes of the (decompressed) datasource.
+	 */
+	public long getLength() {
+		return (this.length);
+	}
+
+	public long getNumOfRows() {
+		return (this.numOfRows);
+	}
+
+	public long getNumOfSentences() {
+		return (this.numOfSentences);
+	}
+
+	/**
+	 * Returns the byte offset of the row with the given index. For the index
+	 * {@link #getNumOfRows()}, the end of the datasource is returned.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 */
+	public long getRowOffset(long index) throws IOException {
+		if (index < 0 || index > this.numOfRows)
+			throw new IndexOutOfBoundsException("Error(TupleReader): no row at index " + index + ", the datasource has " + this.numOfRows + " rows.");
+		if (index == this.numOfRows)
+			return (this.length);
+		return (this.readLong(this.dataStart + 8 * index));
+	}
+
+	/**
+	 * Returns the index of the first row of the sentence with the given index.
+	 * For the index {@link #getNumOfSentences()}, {@link #getNumOfRows()} is
+	 * returned.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 */
+	public long getFirstRow(long sentenceIndex) throws IOException {
+		if (sentenceIndex < 0 || sentenceIndex > this.numOfSentences)
+			throw new IndexOutOfBoundsException("Error(TupleReader): no sentence at index " + sentenceIndex + ", the datasource has " + this.numOfSentences + " sentences.");
+		if (sentenceIndex == this.numOfSentences)
+			return (this.numOfRows);
+		return (this.readLong(this.dataStart + 8 * (this.numOfRows + sentenceIndex)));
+	}
+
+	/**
+	 * Returns the byte offset of the sentence with the given index.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 */
+	public long getSentenceOffset(long sentenceIndex) throws IOException {
+		return (this.getRowOffset(this.getFirstRow(sentenceIndex)));
+	}
+
+	private long readLong(long position) throws IOException {
+		if (this.channel == null)
+			this.channel = FileChannel.open(this.indexFile.toPath(), StandardOpenOption.READ);
+		this.buffer.clear();
+		while (this.buffer.hasRemaining()) {
+			if (this.channel.read(this.buffer, position + this.buffer.position()) < 0)
+				throw new EOFException("Error(TupleReader): index file " + this.indexFile + " is truncated.");
+		}
+		return (this.buffer.getLong(0));
+	}
+
+	/**
+	 * Closes the sidecar file, it is opened again by the next lookup.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+}
@@ -17,16 +17,24 @@
  */
 package org.corpus_tools.peppermodules.conll.tupleconnector.impl;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Vector;
 
+import org.corpus_tools.peppermodules.conll.tupleconnector.Compression;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleStatistics;
 
 public class TupleReaderImpl implements TupleReader {
 	/**
@@ -40,13 +48,10 @@ public class TupleReaderImpl implements TupleReader {
 	private String seperator = "\t";
 
 	/**
-	 * encoding in which file is written
+	 * encoding in which file is written, UTF-8 if not set
 	 */
 	private String encoding = null;
 
-	// BOM character
-	private static final Character utf8BOM = new Character((char) 0xFEFF);
-
 	/**
 	 * collection of tuples, tuples are a collection of attributes
 	 */
@@ -58,14 +63,9 @@ public class TupleReaderImpl implements TupleReader {
 	int tuplePtr = 0;
 
 	/**
-	 * stores the overall number of characters read
+	 * statistics of the rows read
 	 */
-	private Integer charCount = 0;
-
-	/**
-	 * stores the number of characters read per field index
-	 */
-	private ArrayList<Integer> charCountList = new ArrayList<Integer>();
+	private final TupleStatistics statistics = new TupleStatistics();
 
 	@Override
 	public void setFile(File inFile) {
@@ -76,6 +76,40 @@ public class TupleReaderImpl implements TupleReader {
 		if (!inFile.isFile())
 			throw new NullPointerException("Error(TupleReader): the given file-object is not a file: " + inFile + ".");
 		this.inFile = inFile;
+		this.resetIndex();
+		this.rangeStart = 0;
+		this.rangeEnd = -1;
+	}
+
+	/**
+	 * offset of the first byte to be read
+	 */
+	private long rangeStart = 0;
+
+	/**
+	 * offset after the last byte to be read, negative for the end of the file
+	 */
+	private long rangeEnd = -1;
+
+	@Override
+	public void setRange(long start, long end) {
+		if (start < 0 || (end >= 0 && end < start))
+			throw new IllegalArgumentException("Error(TupleReader): invalid range from " + start + " to " + end + ".");
+		this.rangeStart = start;
+		this.rangeEnd = end;
+		this.closeRowReader();
+	}
+
+	protected long getRangeStart() {
+		return (this.rangeStart);
+	}
+
+	/**
+	 * Returns the offset after the last byte to be read, or a negative value
+	 * for the end of the file.
+	 */
+	protected long getRangeEnd() {
+		return (this.rangeEnd);
 	}
 
 	@Override
@@ -88,6 +122,7 @@ public class TupleReaderImpl implements TupleReader {
 		if ((seperator == null) || (seperator.equals("")))
 			throw new NullPointerException("Error(TupleReader): the given seperator is empty.");
 		this.seperator = seperator;
+		this.resetIndex();
 	}
 
 	@Override
@@ -98,6 +133,7 @@ public class TupleReaderImpl implements TupleReader {
 	@Override
 	public void setEncoding(String encoding) {
 		this.encoding = encoding;
+		this.resetIndex();
 	}
 
 	@Override
@@ -105,42 +141,329 @@ public class TupleReaderImpl implements TupleReader {
 		return (this.encoding);
 	}
 
-	public void readFile() throws IOException {
+	/**
+	 * Returns the charset given by {@link #getEncoding()}, or UTF-8 if no
+	 * encoding is set.
+	 * 
+	 * @throws UnsupportedEncodingException
+	 *             if the encoding is not supported
+	 */
+	protected Charset getCharset() throws UnsupportedEncodingException {
+		if ((this.encoding == null) || (this.encoding.isEmpty()))
+			return (StandardCharsets.UTF_8);
+		try {
+			return (Charset.forName(this.encoding));
+		} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+			throw new UnsupportedEncodingException("Error(TupleReader): the given encoding is not supported: " + this.encoding + ".");
+		}
+	}
+
+	/**
+	 * Opens a {@link LineDecoder} for the datasource, which is decompressed
+	 * if necessary.
+	 */
+	private LineDecoder openLineDecoder() throws IOException {
+		return (this.openLineDecoder(this.rangeStart));
+	}
+
+	/**
+	 * Opens a {@link LineDecoder} for the datasource starting at the given
+	 * byte offset and ending at the end of the range.
+	 */
+	private LineDecoder openLineDecoder(long offset) throws IOException {
 		if (this.inFile == null)
 			throw new NullPointerException("Error(TupleReader): Cannot read from empty file.");
-		BufferedReader inReader = new BufferedReader(new InputStreamReader(new FileInputStream(this.inFile), "UTF8"));
-		Collection<String> atts = null;
-		String input = "";
-		tuples = new Vector<Collection<String>>();
-		Integer fieldIndex = 0;
-		charCount = 0;
-		charCountList.clear();
-		int fileLineCount = 0;
-		while ((input = inReader.readLine()) != null) {
-			fileLineCount++;
-			// delete BOM if exists
-			if ((fileLineCount == 1) && (input.startsWith(utf8BOM.toString())))
-				input = input.substring(utf8BOM.toString().length());
-
-			atts = new Vector<String>();
-			if (input != null) {
-				String[] attStr = input.split(this.seperator);
-				fieldIndex = 0;
-				for (String att : attStr) {
-					atts.add(att);
-					try {
-						charCountList.set(fieldIndex, charCountList.get(fieldIndex) + att.length());
-					} catch (IndexOutOfBoundsException e) {
-						charCountList.add(att.length());
-					}
-					charCount += att.length();
-					fieldIndex++;
+		Charset charset = this.getCharset();
+		InputStream in = Compression.open(this.inFile);
+		try {
+			long skipped = 0;
+			while (skipped < offset) {
+				long n = in.skip(offset - skipped);
+				if (n <= 0) {
+					if (in.read() == -1)
+						throw new IOException("Error(TupleReader): offset " + offset + " exceeds file " + this.inFile + ".");
+					n = 1;
 				}
+				skipped += n;
+			}
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+		if (this.rangeEnd >= 0)
+			in = new LimitedInputStream(in, Math.max(0, this.rangeEnd - offset));
+		return (new LineDecoder(in, charset, offset == 0));
+	}
+
+	/**
+	 * A stream returning at most a given number of bytes of another stream.
+	 */
+	private static class LimitedInputStream extends FilterInputStream {
+		private long remaining;
 
+		private LimitedInputStream(InputStream in, long limit) {
+			super(in);
+			this.remaining = limit;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (this.remaining <= 0)
+				return (-1);
+			int b = super.read();
+			if (b != -1)
+				this.remaining--;
+			return (b);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (this.remaining <= 0)
+				return (-1);
+			int read = super.read(b, off, (int) Math.min(len, this.remaining));
+			if (read > 0)
+				this.remaining -= read;
+			return (read);
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(Math.min(n, this.remaining));
+			this.remaining -= skipped;
+			return (skipped);
+		}
+
+		@Override
+		public int available() throws IOException {
+			return ((int) Math.min(super.available(), this.remaining));
+		}
+
+		@Override
+		public boolean markSupported() {
+			return (false);
+		}
+	}
+
+	/**
+	 * index of the datasource, null if not loaded yet
+	 */
+	private TupleIndex index = null;
+
+	/**
+	 * Returns the index of the datasource and loads or builds it, if
+	 * necessary.
+	 */
+	protected TupleIndex getIndex() throws IOException {
+		if (this.inFile == null)
+			throw new NullPointerException("Error(TupleReader): Cannot read from empty file.");
+		if (this.index == null)
+			this.index = TupleIndex.get(this.inFile, this.getCharset(), this.seperator);
+		return (this.index);
+	}
+
+	/**
+	 * Closes and drops the index, which is loaded again for the current file,
+	 * seperator and encoding, when it is needed.
+	 */
+	private void resetIndex() {
+		this.closeRowReader();
+		this.compressed = null;
+		if (this.index != null) {
+			try {
+				this.index.close();
+			} catch (IOException e) {
+				// the index file is only read, nothing is lost
+			}
+			this.index = null;
+		}
+	}
+
+	@Override
+	public void seekRow(long index) throws IOException {
+		this.seek(this.getIndex().getRowOffset(index));
+	}
+
+	@Override
+	public void seekSentence(long index) throws IOException {
+		this.seek(this.getIndex().getSentenceOffset(index));
+	}
+
+	/**
+	 * Moves the stream of {@link #getSentence()} and {@link #nextRow()} to the
+	 * given byte offset, which has to be the beginning of a row.
+	 */
+	protected void seek(long offset) throws IOException {
+		this.close();
+		this.sentenceReader = this.openLineDecoder(offset);
+		this.resetStatistics();
+	}
+
+	public void readFile() throws IOException {
+		LineDecoder inReader = this.openLineDecoder();
+		String input = "";
+		tuples = new Vector<Collection<String>>();
+		this.resetStatistics();
+		try {
+			while ((input = inReader.readLine()) != null) {
+				Collection<String> atts = this.splitLine(input);
+				this.countRow(atts, input);
 				tuples.add(atts);
 			}
+		} finally {
+			inReader.close();
+		}
+	}
+
+	/**
+	 * Splits the given line into its attributes.
+	 */
+	private Collection<String> splitLine(String input) {
+		Collection<String> atts = new Vector<String>();
+		String[] attStr = input.split(this.seperator);
+		for (String att : attStr) {
+			atts.add(att);
+		}
+		return (atts);
+	}
+
+	/**
+	 * Updates the statistics by the given attributes of the given line.
+	 */
+	private void countRow(Collection<String> atts, String input) {
+		int fieldIndex = 0;
+		for (String att : atts) {
+			this.countCharacters(fieldIndex, att.length());
+			fieldIndex++;
+		}
+		this.countRow(atts.size(), (atts.size() == 1) && (input.trim().isEmpty()));
+	}
+
+	/**
+	 * Adds the given number of characters to the overall number of characters
+	 * and to the one of the field given by <code>fieldIndex</code>.
+	 */
+	protected void countCharacters(int fieldIndex, int numOfChars) {
+		this.statistics.countAttribute(fieldIndex, numOfChars);
+	}
+
+	/**
+	 * Counts a row, after its attributes have been counted by
+	 * {@link #countCharacters(int, int)}.
+	 */
+	protected void countRow(int size, boolean blank) {
+		this.statistics.countRow(size, blank);
+	}
+
+	/**
+	 * Resets the statistics of the rows read.
+	 */
+	protected void resetStatistics() {
+		this.statistics.reset();
+	}
+
+	/**
+	 * reader used for streaming the datasource sentence by sentence
+	 */
+	private LineDecoder sentenceReader = null;
+
+	/**
+	 * row reused by {@link #nextRow()}
+	 */
+	private CharTupleRow row = null;
+
+	/**
+	 * Returns the next line read by {@link #sentenceReader} and opens it, if
+	 * necessary.
+	 */
+	private String nextLine() throws IOException {
+		if (this.sentenceReader == null) {
+			this.sentenceReader = this.openLineDecoder();
+			this.resetStatistics();
+		}
+		return (this.sentenceReader.readLine());
+	}
+
+	@Override
+	public List<Collection<String>> getSentence() throws IOException {
+		List<Collection<String>> sentence = null;
+		String input = null;
+		while ((input = this.nextLine()) != null) {
+			if (sentence == null)
+				sentence = new ArrayList<Collection<String>>();
+			Collection<String> atts = this.splitLine(input);
+			this.countRow(atts, input);
+			sentence.add(atts);
+			// an empty row separates sentences
+			if ((atts.size() == 1) && (input.trim().isEmpty()))
+				break;
+		}
+		return (sentence);
+	}
+
+	@Override
+	public TupleRow nextRow() throws IOException {
+		String input = this.nextLine();
+		if (input == null)
+			return (null);
+		if ((this.row == null) || (!this.seperator.equals(this.row.getSeperator())))
+			this.row = new CharTupleRow(this.seperator);
+		this.row.setLine(input);
+		for (int i = 0; i < this.row.size(); i++) {
+			this.countCharacters(i, this.row.get(i).length());
+		}
+		this.countRow(this.row.size(), this.row.isBlank());
+		return (this.row);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.sentenceReader != null) {
+			this.sentenceReader.close();
+			this.sentenceReader = null;
+		}
+		this.closeRowReader();
+		if (this.index != null)
+			this.index.close();
+	}
+
+	/**
+	 * reader of {@link #getTuple(Integer)}, which is kept open, so that
+	 * following rows are read without seeking again, or null
+	 */
+	private LineDecoder rowReader = null;
+
+	/**
+	 * index of the row read next by {@link #rowReader}
+	 */
+	private long rowReaderIndex = 0;
+
+	/**
+	 * number of rows {@link #getTuple(Integer)} rather skips than seeking the
+	 * row by the index
+	 */
+	private static final int MAX_ROWS_TO_SKIP = 64;
+
+	/**
+	 * whether the datasource is compressed, so that seeking a row decompresses
+	 * it from the start, or null if not detected yet
+	 */
+	private Boolean compressed = null;
+
+	private boolean isCompressed() throws IOException {
+		if (this.compressed == null)
+			this.compressed = (Compression.detect(this.inFile) != null);
+		return (this.compressed);
+	}
+
+	private void closeRowReader() {
+		if (this.rowReader != null) {
+			try {
+				this.rowReader.close();
+			} catch (IOException e) {
+				// the datasource is only read, nothing is lost
+			}
+			this.rowReader = null;
 		}
-		inReader.close();
 	}
 
 	/**
@@ -175,9 +498,31 @@ public class TupleReaderImpl implements TupleReader {
 
 	@Override
 	public Collection<String> getTuple(Integer index) throws IOException {
+		if (index < 0)
+			throw new IndexOutOfBoundsException("Error(TupleReader): no row at index " + index + ".");
 		Collection<String> tuple = null;
 		if (tuples != null) {
 			tuple = ((Vector<Collection<String>>) tuples).get(index);
+		} else if (index < this.getIndex().getNumOfRows()) {
+			// read the single row without reading the whole file, a following
+			// row is read by skipping the rows in between, unless it is further
+			// ahead and the datasource can be sought without decompressing it
+			if (this.rowReader == null || index < this.rowReaderIndex || (index - this.rowReaderIndex > MAX_ROWS_TO_SKIP && !this.isCompressed())) {
+				this.closeRowReader();
+				this.rowReader = this.openLineDecoder(this.getIndex().getRowOffset(index));
+				this.rowReaderIndex = index;
+			}
+			String input = null;
+			try {
+				while (this.rowReaderIndex <= index && (input = this.rowReader.readLine()) != null) {
+					this.rowReaderIndex++;
+				}
+			} catch (IOException e) {
+				this.closeRowReader();
+				throw e;
+			}
+			if (input != null)
+				tuple = this.splitLine(input);
 		}
 		return (tuple);
 	}
@@ -194,7 +539,7 @@ public class TupleReaderImpl implements TupleReader {
 
 	@Override
 	public Integer characterSize() {
-		return charCount;
+		return (Math.toIntExact(this.getNumOfChars()));
 	}
 
 	@Override
@@ -202,6 +547,21 @@ public class TupleReaderImpl implements TupleReader {
 	 * @throws IndexOutOfBoundsException
 	 */
 	public Integer characterSize(Integer fieldIndex) {
-		return charCountList.get(fieldIndex);
+		return (Math.toIntExact(this.getNumOfChars(fieldIndex)));
+	}
+
+	@Override
+	public long getNumOfChars() {
+		return (this.statistics.getNumOfChars());
+	}
+
+	@Override
+	public long getNumOfChars(int fieldIndex) {
+		return (this.statistics.getNumOfChars(fieldIndex));
+	}
+
+	@Override
+	public TupleStatistics getStatistics() {
+		return (this.statistics);
 	}
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the package private {@link EnhancedDependencies} and therefore is in
+ * the same package. The expected dependencies are the ones of the former
+ * implementation splitting the value with {@link String#split(String)}.
+ */
+public class EnhancedDependenciesTest {
+
+	/**
+	 * Returns the scanned dependencies of the given value like '2:a, 5.1:obl'.
+	 */
+	private String scan(String value, char labelSeparator, long primaryHead, String primaryLabel) {
+		EnhancedDependencies dependencies = new EnhancedDependencies();
+		assertTrue(dependencies.scan(value, labelSeparator, primaryHead, primaryLabel));
+		assertNull(dependencies.getInvalidSpecification());
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < dependencies.size(); i++) {
+			if (i > 0)
+				result.append(", ");
+			result.append(ConllTokenId.toString(dependencies.getHead(i))).append(':').append(dependencies.getLabel(i));
+		}
+		return (result.toString());
+	}
+
+	private String scan(String value, char labelSeparator) {
+		return (this.scan(value, labelSeparator, ConllTokenId.NONE, null));
+	}
+
+	@Test
+	public void testLabels() {
+		assertEquals("2:a, 5.1:obl", this.scan("2:a:|5.1:obl:with", ':'));
+		assertEquals("2:a:, 5.1:obl:with", this.scan("2:a:|5.1:obl:with", ' '));
+		// dependencies on the root are skipped
+		assertEquals("3:dep", this.scan("0:root|3:dep|", ':'));
+	}
+
+	@Test
+	public void testEmptyLabels() {
+		assertEquals("3:", this.scan("3:", ':'));
+		assertEquals("3:", this.scan("3:", ' '));
+		// only empty labels at the end give no dependency
+		assertEquals("", this.scan("3::", ':'));
+		assertEquals("3::", this.scan("3::", ' '));
+		assertEquals("3:", this.scan("3::obl", ':'));
+	}
+
+	@Test
+	public void testInvalid() {
+		EnhancedDependencies dependencies = new EnhancedDependencies();
+		assertFalse(dependencies.scan("2:a||3:b", ':', ConllTokenId.NONE, null));
+		assertEquals("", dependencies.getInvalidSpecification());
+		assertFalse(dependencies.scan("2:a|x:b", ':', ConllTokenId.NONE, null));
+		assertEquals("x:b", dependencies.getInvalidSpecification());
+		assertFalse(dependencies.scan("2", ':', ConllTokenId.NONE, null));
+		assertEquals("2", dependencies.getInvalidSpecification());
+		// the scanner is reused
+		assertTrue(dependencies.scan("2:a", ':', ConllTokenId.NONE, null));
+		assertNull(dependencies.getInvalidSpecification());
+	}
+
+	/**
+	 * A label duplicating the primary dependency is suppressed and the next
+	 * one of the same head is taken instead.
+	 */
+	@Test
+	public void testDuplicates() {
+		long head = ConllTokenId.of(2);
+		assertEquals("2:pass", this.scan("2:nsubj:pass", ':', head, "nsubj"));
+		assertEquals("2:nsubj:pass", this.scan("2:nsubj:pass", ' ', head, "nsubj"));
+		assertEquals("", this.scan("2:nsubj", ':', head, "nsubj"));
+		assertEquals("2:nsubj, 3:nsubj", this.scan("2:nsubj|3:nsubj", ':', ConllTokenId.of(3), "obj"));
+		assertEquals("2:nsubj", this.scan("2:nsubj|3:nsubj", ':', ConllTokenId.of(3), "nsubj"));
+	}
+}
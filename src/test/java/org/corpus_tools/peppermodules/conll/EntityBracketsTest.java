@@ -0,0 +1,90 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the package private {@link EntityBrackets} and therefore is in the
+ * same package.
+ */
+public class EntityBracketsTest {
+
+	/**
+	 * Returns the brackets of the given value like 'OPEN e1'.
+	 */
+	private String scan(EntityBrackets brackets, String value) {
+		brackets.scan(value);
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < brackets.size(); i++) {
+			if (i > 0)
+				result.append(", ");
+			byte kind = brackets.getKind(i);
+			result.append(kind == EntityBrackets.OPEN ? "OPEN" : kind == EntityBrackets.CLOSE ? "CLOSE" : "SINGLETON");
+			result.append(' ').append(brackets.getContent(i));
+		}
+		return (result.toString());
+	}
+
+	/**
+	 * A bracket nested in an open one is a markable of its own, the open
+	 * bracket ends before it.
+	 */
+	@Test
+	public void testNested() {
+		EntityBrackets brackets = new EntityBrackets();
+		assertEquals("OPEN e1-person, SINGLETON e2-place, CLOSE e3", this.scan(brackets, "(e1-person(e2-place)e3)"));
+		assertEquals("OPEN e1, OPEN e2", this.scan(brackets, "(e1(e2"));
+	}
+
+	@Test
+	public void testAdjacent() {
+		EntityBrackets brackets = new EntityBrackets();
+		assertEquals("SINGLETON e1, OPEN e2", this.scan(brackets, "(e1)(e2"));
+		assertEquals("CLOSE e1, CLOSE e2", this.scan(brackets, "e1)e2)"));
+		assertEquals("CLOSE e2, SINGLETON e3", this.scan(brackets, "e2)(e3)"));
+	}
+
+	/**
+	 * Stray ')' and '|', empty brackets and contents without a bracket are
+	 * skipped.
+	 */
+	@Test
+	public void testStray() {
+		EntityBrackets brackets = new EntityBrackets();
+		assertEquals("OPEN e1", this.scan(brackets, ")|(e1"));
+		assertEquals("CLOSE e1", this.scan(brackets, "|e1)|"));
+		assertEquals("", this.scan(brackets, "()e1||)"));
+		assertEquals("SINGLETON e1", this.scan(brackets, "((e1))"));
+	}
+
+	@Test
+	public void testGetGroup() {
+		EntityBrackets brackets = new EntityBrackets();
+		brackets.scan("(e1-person-1");
+		assertEquals("e1-person-1", brackets.getGroup(0, -1));
+		assertEquals("e1", brackets.getGroup(0, 0));
+		assertEquals("person", brackets.getGroup(0, 1));
+		assertEquals("1", brackets.getGroup(0, 2));
+		// a position past the last part gives an empty group
+		assertEquals("", brackets.getGroup(0, 3));
+		assertEquals("", brackets.getGroup(0, 10));
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.corpus_tools.peppermodules.CoNLLModules.CoNLLCorefMarkable;
+import org.corpus_tools.salt.SaltFactory;
+import org.corpus_tools.salt.common.SDocument;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Test;
+
+/**
+ * Tests the text of markables, which is taken from the primary text, when
+ * the markable is closed. The markables are not part of the document graph
+ * and are read from the package private list of the mapper, therefore the
+ * test is in the same package.
+ */
+public class MarkableTextTest {
+
+	/**
+	 * Maps the given file with the given properties, pairs of names and
+	 * values, and returns the mapper.
+	 */
+	private Conll2SaltMapper map(File file, String... properties) {
+		Conll2SaltMapper mapper = new Conll2SaltMapper();
+		for (int i = 0; i < properties.length; i += 2) {
+			mapper.getProperties().setPropertyValue(properties[i], properties[i + 1]);
+		}
+		SDocument sDoc = SaltFactory.createSDocument();
+		SaltFactory.createIdentifier(sDoc, "doc1");
+		mapper.setDocument(sDoc);
+		mapper.getDocument().setDocumentGraph(SaltFactory.createSDocumentGraph());
+		mapper.setResourceURI(URI.createFileURI(file.getAbsolutePath()));
+		mapper.mapSDocument();
+		return (mapper);
+	}
+
+	/**
+	 * Returns the texts of the markables with the given contents.
+	 */
+	private List<String> getTexts(Conll2SaltMapper mapper, String annoString) {
+		List<String> texts = new ArrayList<String>();
+		for (CoNLLCorefMarkable mark : mapper.markables) {
+			if (annoString.equals(mark.getAnnoString()))
+				texts.add(mark.getText());
+		}
+		return (texts);
+	}
+
+	/**
+	 * The text of a markable does not contain the text of a former markable
+	 * of the same group.
+	 */
+	@Test
+	public void testText() {
+		Conll2SaltMapper mapper = this.map(new File("src/test/resources/on_conllua.conllu"), "conll.markable.labels", "entity-EDGE-", "conll.markable.annotation", "Entity", "conll.markable.namespace", "ref", "conll.ellipsis.tok.annotation", "morph:Ellipsis");
+		assertEquals(Arrays.asList("Hong Kong", "Hong Kong"), this.getTexts(mapper, "GPE-IDENT-1"));
+	}
+
+	/**
+	 * The text of a markable crossing sentences is the same, if each sentence
+	 * is in a text segment of its own.
+	 */
+	@Test
+	public void testTextSegments() throws Exception {
+		File file = File.createTempFile("markables", ".conllu");
+		file.deleteOnExit();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("1\ta\ta\tX\tX\t_\t0\troot\t_\tEntity=(e2\n2\tb\tb\tX\tX\t_\t1\tdep\t_\tEntity=(e1\n\n");
+		writer.write("1\tc\tc\tX\tX\t_\t0\troot\t_\tEntity=e1)\n2\td\td\tX\tX\t_\t1\tdep\t_\t_\n\n");
+		writer.write("1\te\te\tX\tX\t_\t0\troot\t_\tEntity=e2)\n\n");
+		writer.close();
+
+		for (String segmentSentences : new String[] { "0", "1" }) {
+			Conll2SaltMapper mapper = this.map(file, "conll.markable.annotation", "Entity", "conll.text.segment.sentences", segmentSentences);
+			assertEquals(segmentSentences.equals("0") ? 1 : 3, mapper.getDocument().getDocumentGraph().getTextualDSs().size());
+			assertEquals(Arrays.asList("b c"), this.getTexts(mapper, "e1"));
+			assertEquals(Arrays.asList("a b c d e"), this.getTexts(mapper, "e2"));
+		}
+	}
+}
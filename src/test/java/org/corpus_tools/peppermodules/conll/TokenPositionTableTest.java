@@ -0,0 +1,65 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests the package private {@link TokenPositionTable} and therefore is in
+ * the same package.
+ */
+public class TokenPositionTableTest {
+
+	/**
+	 * Ids of empty nodes like 10.1 and 10.10, which are equal as floats, are
+	 * kept apart, also while the table grows.
+	 */
+	@Test
+	public void testResize() {
+		TokenPositionTable table = new TokenPositionTable();
+		int position = 0;
+		for (int major = 1; major <= 100; major++) {
+			table.put(ConllTokenId.of(major), position++);
+			table.put(ConllTokenId.of(major, 1), position++);
+			table.put(ConllTokenId.of(major, 10), position++);
+		}
+		assertEquals(300, table.size());
+		position = 0;
+		for (int major = 1; major <= 100; major++) {
+			assertEquals(position++, table.get(ConllTokenId.parse(major + "")));
+			assertEquals(position++, table.get(ConllTokenId.parse(major + ".1")));
+			assertEquals(position++, table.get(ConllTokenId.parse(major + ".10")));
+			assertEquals(-1, table.get(ConllTokenId.parse(major + ".2")));
+		}
+		assertEquals(-1, table.get(ConllTokenId.NONE));
+	}
+
+	@Test
+	public void testClear() {
+		TokenPositionTable table = new TokenPositionTable();
+		table.put(ConllTokenId.of(10, 1), 0);
+		table.put(ConllTokenId.of(10, 1), 1);
+		assertEquals(1, table.size());
+		assertEquals(1, table.get(ConllTokenId.of(10, 1)));
+		table.clear();
+		assertEquals(0, table.size());
+		assertEquals(-1, table.get(ConllTokenId.of(10, 1)));
+	}
+}
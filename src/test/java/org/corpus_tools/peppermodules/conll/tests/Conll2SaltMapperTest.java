@@ -21,9 +21,18 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import org.corpus_tools.pepper.modules.exceptions.PepperModuleDataException;
+import org.corpus_tools.peppermodules.CoNLLModules.CoNLLDocumentRange;
 import org.corpus_tools.peppermodules.conll.Conll2SaltMapper;
 import org.corpus_tools.salt.SaltFactory;
 import org.corpus_tools.salt.common.SCorpusGraph;
@@ -36,6 +45,8 @@ import org.corpus_tools.salt.common.STextualRelation;
 import org.corpus_tools.salt.common.SToken;
 import org.corpus_tools.salt.core.SAnnotation;
 import org.corpus_tools.salt.core.SLayer;
+import org.corpus_tools.salt.core.SMetaAnnotation;
+import org.corpus_tools.salt.core.SNode;
 import org.corpus_tools.salt.core.SRelation;
 import org.corpus_tools.salt.semantics.SLemmaAnnotation;
 import org.corpus_tools.salt.semantics.SPOSAnnotation;
@@ -230,6 +241,149 @@ public class Conll2SaltMapperTest {
 	  }
 	}
 	
+	@Test
+	public void testTextSegments()
+	{
+	  getFixture().getProperties().setPropertyValue("conll.text.segment.sentences", "2");
+	  getFixture().setResourceURI(URI.createFileURI("src/test/resources/sentence.conll"));
+	  getFixture().mapSDocument();
+
+	  SDocumentGraph dg = getFixture().getDocument().getDocumentGraph();
+
+	  // 3 sentences are split into texts of 2 and 1 sentences
+	  Assert.assertEquals(2, dg.getTextualDSs().size());
+	  Assert.assertEquals(24, dg.getTokens().size());
+	  Assert.assertEquals(dg.getText(dg.getTokens().get(0)), dg.getText(dg.getTokens().get(16)));
+	  Assert.assertEquals(8, dg.getTextualDSs().get(1).getText().split(" ").length);
+	  Assert.assertEquals(3, dg.getSpans().size());
+	}
+
+	/**
+	 * Writes the given rows to a temporary file and returns it.
+	 */
+	private File writeFile(String rows) throws Exception
+	{
+	  File file = File.createTempFile("conll", ".conllu");
+	  file.deleteOnExit();
+	  Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+	  writer.write(rows);
+	  writer.close();
+	  return file;
+	}
+
+	/**
+	 * Checks that documents of a file split at '# newdoc' rows, which only
+	 * contain comment rows, are mapped to documents without tokens.
+	 */
+	@Test
+	public void testNewdocWithoutTokens() throws Exception
+	{
+	  File file = writeFile("# newdoc id = a\n# newdoc id = b\n1\tx\tx\tX\tX\t_\t0\troot\t_\t_\n\n# newdoc id = c\n");
+
+	  List<CoNLLDocumentRange> ranges = CoNLLDocumentRange.scan(file, StandardCharsets.UTF_8);
+	  Assert.assertEquals(3, ranges.size());
+	  int[] numOfTokens = { 0, 1, 0 };
+	  for (int i = 0; i < ranges.size(); i++)
+	  {
+	    setUp();
+	    getFixture().setResourceURI(ranges.get(i).toURI(URI.createFileURI(file.getAbsolutePath())));
+	    getFixture().mapSDocument();
+
+	    SDocumentGraph dg = getFixture().getDocument().getDocumentGraph();
+	    Assert.assertEquals(numOfTokens[i], dg.getTokens().size());
+	    Assert.assertEquals(numOfTokens[i] == 0 ? "" : "x", dg.getTextualDSs().get(0).getText());
+	  }
+	}
+
+	/**
+	 * Maps the given file with the properties of {@link #setUp()} and the
+	 * given properties, pairs of names and values, and returns the graph.
+	 */
+	private SDocumentGraph map(String file, String... properties)
+	{
+	  setUp();
+	  for (int i = 0; i < properties.length; i += 2)
+	  {
+	    getFixture().getProperties().setPropertyValue(properties[i], properties[i + 1]);
+	  }
+	  getFixture().setResourceURI(URI.createFileURI(file));
+	  getFixture().mapSDocument();
+	  return getFixture().getDocument().getDocumentGraph();
+	}
+
+	/**
+	 * Describes the given graph line by line: the meta annotations of the
+	 * document, the nodes with texts, annotations and layers and the
+	 * relations with their ends, types, offsets, annotations and layers, all
+	 * in the order they have been added.
+	 */
+	private List<String> describe(SDocumentGraph dg)
+	{
+	  List<String> description = new ArrayList<String>();
+	  for (SMetaAnnotation meta : dg.getDocument().getMetaAnnotations())
+	  {
+	    description.add("meta " + meta.getQName() + "=" + meta.getValue());
+	  }
+	  List<SNode> nodes = dg.getNodes();
+	  for (SNode node : nodes)
+	  {
+	    String text = (node instanceof STextualDS) ? " " + ((STextualDS) node).getText() : "";
+	    description.add(node.getClass().getSimpleName() + text + describe(node.getAnnotations()) + describeLayers(node.getLayers()));
+	  }
+	  for (SRelation<?, ?> rel : dg.getRelations())
+	  {
+	    String offsets = (rel instanceof STextualRelation) ? " " + ((STextualRelation) rel).getStart() + "-" + ((STextualRelation) rel).getEnd() : "";
+	    description.add(rel.getClass().getSimpleName() + " " + nodes.indexOf(rel.getSource()) + "->" + nodes.indexOf(rel.getTarget()) + " " + rel.getType() + offsets + describe(rel.getAnnotations()) + describeLayers(rel.getLayers()));
+	  }
+	  return description;
+	}
+
+	private String describe(Set<SAnnotation> annotations)
+	{
+	  StringBuilder description = new StringBuilder();
+	  for (SAnnotation anno : annotations)
+	  {
+	    description.append(' ').append(anno.getQName()).append('=').append(anno.getValue());
+	  }
+	  return description.toString();
+	}
+
+	private String describeLayers(Set<SLayer> layers)
+	{
+	  List<String> names = new ArrayList<String>();
+	  for (SLayer layer : layers)
+	  {
+	    names.add(layer.getName());
+	  }
+	  Collections.sort(names);
+	  return " " + names;
+	}
+
+	/**
+	 * Checks that the graphs of documents mapped sentence by sentence and
+	 * mapped in parallel are equal.
+	 */
+	@Test
+	public void testParallelSentences()
+	{
+	  String[][] cases = {
+	      { "src/test/resources/on_conllua.conllu", "conll.enhanced.EDGE.TYPE", "edep", "conll.dependency.layers", "TRUE", "conll.no.duplicate.edeps", "TRUE", "conll.SECOND.POS.NAME", "upos", "conll.EDGE.TYPE", "dep", "conll.markable.labels", "entity-EDGE-", "conll.markable.annotation", "Entity", "conll.markable.namespace", "ref", "conll.sentence.annotations", "speaker", "conll.ellipsis.tok.annotation", "morph:Ellipsis" },
+	      { "src/test/resources/edeps.conllu", "conll.enhanced.EDGE.TYPE", "edep", "conll.dependency.layers", "TRUE", "conll.no.duplicate.edeps", "TRUE", "conll.EDGE.TYPE", "dep", "conll.ellipsis.tok.annotation", "ellipsis:word" },
+	      { "src/test/resources/sentence.conll", "conll.text.segment.sentences", "2" } };
+	  for (String[] properties : cases)
+	  {
+	    String file = properties[0];
+	    String[] sequential = Arrays.copyOfRange(properties, 1, properties.length);
+	    String[] parallel = Arrays.copyOf(sequential, sequential.length + 2);
+	    parallel[sequential.length] = "conll.parallel.sentences";
+	    parallel[sequential.length + 1] = "2";
+
+	    SDocumentGraph sequentialGraph = map(file, sequential);
+	    Assert.assertTrue(sequentialGraph.getTokens().size() > 0);
+	    Assert.assertEquals(file, describe(sequentialGraph), describe(map(file, parallel)));
+	  }
+	}
+
 	@Test
   public void testNoSentenceAnnotation()
   {
@@ -533,4 +687,89 @@ public class Conll2SaltMapperTest {
 	  
 
 	}
+
+	/**
+	 * Checks that an enhanced dependency duplicating the primary one is
+	 * suppressed by taking the next label of the head, and that an empty
+	 * specification aborts the conversion.
+	 */
+	@Test
+	public void testEnhancedDependencyLabels() throws Exception
+	{
+	  File file = writeFile("1\tHe\the\tPRON\tPRP\t_\t2\tnsubj\t2:nsubj:pass|3:nsubj:xsubj\t_\n2\twas\tbe\tAUX\tVBD\t_\t0\troot\t0:root\t_\n3\tseen\tsee\tVERB\tVBN\t_\t2\txcomp\t2:xcomp\t_\n\n");
+	  SDocumentGraph dg = map(file.getAbsolutePath(), "conll.enhanced.EDGE.TYPE", "edep", "conll.no.duplicate.edeps", "TRUE", "conll.split.edeps", "true", "conll.EDGE.TYPE", "dep");
+	  List<String> edeps = new ArrayList<String>();
+	  for (SPointingRelation rel : dg.getPointingRelations())
+	  {
+	    if ("edep".equals(rel.getType()))
+	    {
+	      edeps.add(dg.getText(rel.getSource()) + " " + rel.getAnnotations().iterator().next().getValue() + " " + dg.getText(rel.getTarget()));
+	    }
+	  }
+	  Assert.assertEquals(Arrays.asList("was pass He", "seen nsubj He"), edeps);
+
+	  file = writeFile("1\tHe\the\tPRON\tPRP\t_\t2\tnsubj\t2:a||3:b\t_\n2\twas\tbe\tAUX\tVBD\t_\t0\troot\t0:root\t_\n3\tseen\tsee\tVERB\tVBN\t_\t2\txcomp\t2:xcomp\t_\n\n");
+	  try
+	  {
+	    map(file.getAbsolutePath(), "conll.enhanced.EDGE.TYPE", "edep", "conll.EDGE.TYPE", "dep");
+	    fail("An empty enhanced dependency specification has to be rejected.");
+	  } catch (PepperModuleDataException e)
+	  {
+	    Assert.assertTrue(e.getMessage(), e.getMessage().contains("Could not parse head id from enhanced dependency specification ``"));
+	  }
+	}
+
+	/**
+	 * Checks that a projective head following its dependent is found.
+	 */
+	@Test
+	public void testForwardProjectiveHead() throws Exception
+	{
+	  File file = writeFile("1\tDie\tder\tART\tART\t_\t0\tROOT\t2\tDET\n2\tKinder\tKind\tN\tNN\t_\t1\tSUBJ\t0\tROOT\n\n");
+	  SDocumentGraph dg = map(file.getAbsolutePath(), "conll.considerProjectivity", "TRUE");
+	  List<SToken> tokens = dg.getTokens();
+	  List<String> relations = new ArrayList<String>();
+	  for (SPointingRelation rel : dg.getPointingRelations())
+	  {
+	    relations.add(tokens.indexOf(rel.getSource()) + "->" + tokens.indexOf(rel.getTarget()));
+	  }
+	  // the projective dependency of the first token comes first
+	  Assert.assertEquals(Arrays.asList("1->0", "0->1"), relations);
+	}
+
+	/**
+	 * Checks that a head id without a token in the sentence aborts the
+	 * conversion.
+	 */
+	@Test
+	public void testUnresolvedHead() throws Exception
+	{
+	  File file = writeFile("1\tDie\tder\tART\tART\t_\t2\tDET\t_\t_\n2\tKinder\tKind\tN\tNN\t_\t5\tSUBJ\t_\t_\n\n");
+	  try
+	  {
+	    map(file.getAbsolutePath());
+	    fail("A head id without a token in the sentence has to be rejected.");
+	  } catch (PepperModuleDataException e)
+	  {
+	    Assert.assertTrue(e.getMessage(), e.getMessage().contains("Head id 5 does not refer to a token of the same sentence"));
+	  }
+	}
+
+	/**
+	 * Checks that a markable, which is opened but never closed, aborts the
+	 * conversion.
+	 */
+	@Test
+	public void testUnclosedMarkable() throws Exception
+	{
+	  File file = writeFile("1\tDie\tder\tART\tART\t_\t2\tdet\t_\tEntity=(e1)\n2\tKinder\tKind\tN\tNN\t_\t0\troot\t_\tEntity=(x\n\n3\tspielen\tspielen\tV\tVVFIN\t_\t0\troot\t_\t_\n\n");
+	  try
+	  {
+	    map(file.getAbsolutePath(), "conll.markable.annotation", "Entity");
+	    fail("A markable, which is not closed, has to be rejected.");
+	  } catch (PepperModuleDataException e)
+	  {
+	    Assert.assertTrue(e.getMessage(), e.getMessage().contains("Found opening bracket (x at token 2 but group was not closed!"));
+	  }
+	}
 }
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.corpus_tools.peppermodules.conll.ConllTokenId;
+import org.junit.Test;
+
+public class ConllTokenIdTest {
+
+	@Test
+	public void testParse() {
+		assertEquals(ConllTokenId.of(10), ConllTokenId.parse("10"));
+		assertEquals(ConllTokenId.of(10, 1), ConllTokenId.parse("10.1"));
+		assertEquals(10, ConllTokenId.major(ConllTokenId.parse("10.10")));
+		assertEquals(10, ConllTokenId.minor(ConllTokenId.parse("10.10")));
+		assertEquals("10.10", ConllTokenId.toString(ConllTokenId.parse("10.10")));
+		assertEquals(ConllTokenId.NONE, ConllTokenId.parseOrNone("_"));
+		assertEquals(ConllTokenId.NONE, ConllTokenId.parseOrNone("1-2"));
+		assertEquals(ConllTokenId.NONE, ConllTokenId.parseOrNone("10."));
+		assertEquals(ConllTokenId.NONE, ConllTokenId.parseOrNone(null));
+		assertEquals(ConllTokenId.of(10, 1), ConllTokenId.parseOrNone("3:nsubj|10.1:obj", 8, 12));
+		assertEquals(ConllTokenId.NONE, ConllTokenId.parseOrNone("3:nsubj", 1, 1));
+	}
+
+	/**
+	 * Decimal ids of empty nodes have to be distinct and ordered, which they
+	 * are not as floats: 10.1 equals 10.10.
+	 */
+	@Test
+	public void testOrder() {
+		String[] ids = { "0", "9", "10", "10.1", "10.2", "10.9", "10.10", "11" };
+		for (int i = 1; i < ids.length; i++) {
+			assertTrue(ids[i - 1] + " < " + ids[i], ConllTokenId.parse(ids[i - 1]) < ConllTokenId.parse(ids[i]));
+		}
+	}
+
+	@Test
+	public void testParseInvalid() {
+		try {
+			ConllTokenId.parse("x");
+			fail("An invalid id has to be rejected.");
+		} catch (NumberFormatException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2009 Humboldt-Universität zu Berlin, INRIA.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *
+ */
+package org.corpus_tools.peppermodules.conll.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.corpus_tools.peppermodules.conll.StringPool;
+import org.junit.Test;
+
+public class StringPoolTest {
+
+	@Test
+	public void testIntern() {
+		StringPool pool = new StringPool(2);
+		String nom = new String("Nom");
+		assertSame(nom, pool.intern(nom));
+		assertSame(nom, pool.intern(new String("Nom")));
+		assertEquals(1, pool.getHits());
+		assertEquals(1, pool.getMisses());
+		assertEquals(40 + 2 * 3, pool.getBytesSaved());
+
+		pool.intern("Acc");
+		// the pool is full
+		String dat = new String("Dat");
+		assertSame(dat, pool.intern(dat));
+		assertNotSame(dat, pool.intern(new String("Dat")));
+		assertEquals(2, pool.size());
+	}
+}
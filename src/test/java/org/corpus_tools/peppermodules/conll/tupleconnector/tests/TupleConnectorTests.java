@@ -17,15 +17,33 @@
  */
 package org.corpus_tools.peppermodules.conll.tupleconnector.tests;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Vector;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.corpus_tools.peppermodules.CoNLLModules.CoNLLDocumentRange;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleConnectorFactory;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleReader;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleRow;
+import org.corpus_tools.peppermodules.conll.tupleconnector.TupleStatistics;
 import org.corpus_tools.peppermodules.conll.tupleconnector.TupleWriter;
+import org.corpus_tools.peppermodules.conll.tupleconnector.impl.ChunkedTupleReaderImpl;
+import org.corpus_tools.peppermodules.conll.tupleconnector.impl.TupleIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -322,6 +340,412 @@ public class TupleConnectorTests extends TestCase {
 		logger.info(info + "OK");
 	}
 
+	/**
+	 * Checks that the mapped reader returns the same tuples and rows as the
+	 * default reader, also for a BOM, mixed line breaks, trailing seperators and
+	 * multibyte characters.
+	 */
+	public void testMappedReadEqualsRead() throws Exception {
+		File file = new File(this.testFolder.toString() + "/" + "testMappedRead.tab");
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("\uFEFF1\tHäuser\t_\r\n2\t\uD83D\uDE00\t\t\n\n# comment\r\n \t\n\t\t\n3\tx\t_");
+		writer.close();
+
+		String[] fileNames = { file.toString(), "./src/test/resources/zossen.conll", "./src/test/resources/edeps.conllu" };
+		for (String fileName : fileNames) {
+			TupleReader reader = TupleConnectorFactory.fINSTANCE.createTupleReader();
+			TupleReader mappedReader = TupleConnectorFactory.fINSTANCE.createMappedTupleReader();
+			reader.setFile(new File(fileName));
+			mappedReader.setFile(new File(fileName));
+			reader.readFile();
+			mappedReader.readFile();
+			assertEquals(fileName, new ArrayList<Collection<String>>(reader.getTuples()), new ArrayList<Collection<String>>(mappedReader.getTuples()));
+			assertEquals(fileName, reader.characterSize(), mappedReader.characterSize());
+
+			List<Collection<String>> sentence = null;
+			List<Collection<String>> mappedSentence = null;
+			do {
+				sentence = reader.getSentence();
+				mappedSentence = mappedReader.getSentence();
+				assertEquals(fileName, sentence, mappedSentence);
+			} while (sentence != null);
+			reader.close();
+			mappedReader.close();
+
+			// rows are reused, but have to provide the same attributes
+			for (Collection<String> tuple : reader.getTuples()) {
+				TupleRow row = reader.nextRow();
+				TupleRow mappedRow = mappedReader.nextRow();
+				assertEquals(fileName, tuple, row.toTuple());
+				assertEquals(fileName, tuple, mappedRow.toTuple());
+				int index = 0;
+				for (String att : tuple) {
+					assertTrue(fileName, row.equals(index, att));
+					assertTrue(fileName, mappedRow.equals(index, att));
+					assertFalse(fileName, mappedRow.equals(index, att + "x"));
+					assertEquals(fileName, att, mappedRow.get(index).toString());
+					assertEquals(fileName, att.length(), mappedRow.get(index).length());
+					index++;
+				}
+			}
+			assertNull(reader.nextRow());
+			assertNull(mappedReader.nextRow());
+			reader.close();
+			mappedReader.close();
+		}
+	}
+
+	/**
+	 * Checks that the prefetching reader returns the same sentences and rows
+	 * as the wrapped reader, also when the queue is smaller than the file and
+	 * the reader is closed before the file is exhausted.
+	 */
+	public void testPrefetchingReadEqualsRead() throws Exception {
+		String[] fileNames = { "./src/test/resources/zossen.conll", "./src/test/resources/edeps.conllu" };
+		for (String fileName : fileNames) {
+			TupleReader reader = TupleConnectorFactory.fINSTANCE.createTupleReader();
+			TupleReader prefetchingReader = TupleConnectorFactory.fINSTANCE.createPrefetchingTupleReader(TupleConnectorFactory.fINSTANCE.createMappedTupleReader(), 1);
+			reader.setFile(new File(fileName));
+			prefetchingReader.setFile(new File(fileName));
+
+			List<Collection<String>> sentence = null;
+			do {
+				sentence = reader.getSentence();
+				assertEquals(fileName, sentence, prefetchingReader.getSentence());
+			} while (sentence != null);
+			assertNull(prefetchingReader.nextRow());
+			reader.close();
+			prefetchingReader.close();
+
+			// after closing, the file is read from its beginning again
+			assertEquals(fileName, reader.nextRow().toTuple(), prefetchingReader.nextRow().toTuple());
+			reader.close();
+			prefetchingReader.close();
+			TupleRow row = null;
+			while ((row = reader.nextRow()) != null) {
+				TupleRow prefetchedRow = prefetchingReader.nextRow();
+				assertEquals(fileName, row.toTuple(), prefetchedRow.toTuple());
+				assertEquals(fileName, row.isBlank(), prefetchedRow.isBlank());
+			}
+			assertNull(prefetchingReader.nextRow());
+			reader.close();
+			prefetchingReader.close();
+		}
+	}
+
+	/**
+	 * Checks that the chunked reader returns the same rows and statistics as
+	 * the sequential reader, also for chunks smaller than a sentence, files
+	 * with BOM and mixed line breaks and after seeking.
+	 */
+	public void testChunkedReadEqualsRead() throws Exception {
+		File file = new File(this.testFolder.toString() + "/" + "testChunkedRead.tab");
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("\uFEFF1\tH\u00E4user\t_\r\n2\tx\t\t\n\n# comment\r \t\n\t\t\n3\tx\t_\r\n\r\n4\ty\n\n\n5\tz");
+		writer.close();
+		String[] fileNames = { "./src/test/resources/zossen.conll", "./src/test/resources/edeps.conllu", file.getPath() };
+		int[] chunkSizes = { 1, 16, 1024, ChunkedTupleReaderImpl.DEFAULT_MAX_CHUNK_SIZE };
+		for (String fileName : fileNames) {
+			TupleReader reader = TupleConnectorFactory.fINSTANCE.createTupleReader();
+			reader.setFile(new File(fileName));
+			List<Collection<String>> tuples = new ArrayList<Collection<String>>();
+			TupleRow row = null;
+			while ((row = reader.nextRow()) != null) {
+				tuples.add(row.toTuple());
+			}
+			TupleStatistics statistics = reader.getStatistics();
+			for (int chunkSize : chunkSizes) {
+				TupleReader chunkedReader = new ChunkedTupleReaderImpl(3, chunkSize);
+				chunkedReader.setFile(new File(fileName));
+				List<Collection<String>> chunkedTuples = new ArrayList<Collection<String>>();
+				while ((row = chunkedReader.nextRow()) != null) {
+					chunkedTuples.add(row.toTuple());
+				}
+				assertEquals(fileName + ", chunk size " + chunkSize, tuples, chunkedTuples);
+				assertEquals(fileName + ", chunk size " + chunkSize, statistics.toString(), chunkedReader.getStatistics().toString());
+
+				chunkedReader.seekRow(tuples.size() / 2);
+				assertEquals(fileName + ", chunk size " + chunkSize, tuples.get(tuples.size() / 2), chunkedReader.nextRow().toTuple());
+				chunkedReader.close();
+				assertEquals(fileName + ", chunk size " + chunkSize, tuples.get(0), chunkedReader.getSentence().get(0));
+				chunkedReader.close();
+			}
+			reader.close();
+			TupleIndex.getIndexFile(new File(fileName)).delete();
+		}
+	}
+
+	/**
+	 * Checks that seeking a row or sentence via the index file continues
+	 * reading at the same row as reading the whole file, also for compressed
+	 * files, files with BOM and mixed line breaks and rows far ahead.
+	 */
+	public void testSeek() throws Exception {
+		File file = new File(this.testFolder.toString() + "/" + "testSeek.tab");
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("\uFEFF1\tH\u00E4user\t_\r\n2\tx\t\t\n\n# comment\r \t\n\t\t\n3\tx\t_\r\n\r\n4\ty");
+		writer.close();
+		File gzipFile = new File(this.testFolder.toString() + "/" + "testSeek.conll.gz");
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile));
+		out.write(Files.readAllBytes(new File("./src/test/resources/zossen.conll").toPath()));
+		out.close();
+		File largeFile = new File(this.testFolder.toString() + "/" + "testSeekLarge.tab");
+		writer = new OutputStreamWriter(new FileOutputStream(largeFile), "UTF-8");
+		for (int i = 0; i < 500; i++) {
+			writer.write((i % 10 + 1) + "\tx" + i + "\t_\n" + (i % 10 == 9 ? "\n" : ""));
+		}
+		writer.close();
+
+		File[] files = { file, gzipFile, largeFile };
+		for (File inFile : files) {
+			TupleIndex.getIndexFile(inFile).delete();
+			TupleReader reader = TupleConnectorFactory.fINSTANCE.createTupleReader();
+			reader.setFile(inFile);
+			List<Collection<String>> sentences = new ArrayList<Collection<String>>();
+			List<Collection<String>> sentence = null;
+			while ((sentence = reader.getSentence()) != null) {
+				sentences.add(sentence.get(0));
+			}
+			reader.close();
+			reader.readFile();
+			List<Collection<String>> tuples = new ArrayList<Collection<String>>(reader.getTuples());
+
+			TupleReader[] readers = { TupleConnectorFactory.fINSTANCE.createTupleReader(), TupleConnectorFactory.fINSTANCE.createMappedTupleReader(), TupleConnectorFactory.fINSTANCE.createPrefetchingTupleReader(TupleConnectorFactory.fINSTANCE.createTupleReader(), 2) };
+			for (TupleReader seekingReader : readers) {
+				seekingReader.setFile(inFile);
+				for (int i = tuples.size() - 1; i >= 0; i -= 3) {
+					seekingReader.seekRow(i);
+					assertEquals(inFile + ", row " + i, tuples.get(i), seekingReader.nextRow().toTuple());
+					assertEquals(inFile + ", row " + i, tuples.get(i), seekingReader.getTuple(i));
+				}
+				for (int i = 0; i < sentences.size(); i++) {
+					seekingReader.seekSentence(i);
+					assertEquals(inFile + ", sentence " + i, sentences.get(i), seekingReader.getSentence().get(0));
+				}
+				// following rows are read from the same position
+				for (int i = 0; i < tuples.size(); i += 1 + i % 2) {
+					assertEquals(inFile + ", row " + i, tuples.get(i), seekingReader.getTuple(i));
+				}
+				// rows further ahead are sought
+				for (int i = 0; i < tuples.size(); i += 100) {
+					assertEquals(inFile + ", row " + i, tuples.get(i), seekingReader.getTuple(i));
+				}
+				try {
+					seekingReader.getTuple(-1);
+					fail("A negative row index has to be rejected.");
+				} catch (IndexOutOfBoundsException e) {
+					// expected
+				}
+				seekingReader.seekRow(tuples.size());
+				assertNull(seekingReader.nextRow());
+				seekingReader.close();
+			}
+			assertTrue(TupleIndex.getIndexFile(inFile).isFile());
+		}
+		// no temporary files of building the index are left
+		for (File leftFile : file.getParentFile().listFiles()) {
+			assertFalse(leftFile.getName(), leftFile.getName().endsWith(".tmp"));
+		}
+		assertTrue(TupleIndex.isIndexFileName("doc.conll.idx"));
+		assertTrue(TupleIndex.isIndexFileName("doc.conll.idx4711.sentences.tmp"));
+		assertFalse(TupleIndex.isIndexFileName("doc.conll.tmp"));
+	}
+
+	/**
+	 * Checks that a file is split at '# newdoc' comment rows and that reading
+	 * the ranges one after another returns the same rows as reading the whole
+	 * file.
+	 */
+	public void testReadRange() throws Exception {
+		File file = new File(this.testFolder.toString() + "/" + "testReadRange.conllu");
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("\uFEFF# global.columns = ID FORM\n# newdoc id = a\n1\tH\u00E4user\n\n# newdoc id = b/c\r\n1\ty\r\n2\tz\r\n\r\n#newdoc\n# newdocument = no\n1\tw");
+		writer.close();
+
+		List<CoNLLDocumentRange> ranges = CoNLLDocumentRange.scan(file, StandardCharsets.UTF_8);
+		assertEquals(3, ranges.size());
+		assertEquals("a", ranges.get(0).getId());
+		assertEquals("b/c", ranges.get(1).getId());
+		assertNull(ranges.get(2).getId());
+		assertEquals(0, ranges.get(0).getStart());
+		assertEquals(file.length(), ranges.get(2).getEnd());
+
+		TupleReader reader = TupleConnectorFactory.fINSTANCE.createTupleReader();
+		reader.setFile(file);
+		reader.readFile();
+		List<Collection<String>> tuples = new ArrayList<Collection<String>>(reader.getTuples());
+
+		TupleReader[] readers = { TupleConnectorFactory.fINSTANCE.createTupleReader(), TupleConnectorFactory.fINSTANCE.createMappedTupleReader(), TupleConnectorFactory.fINSTANCE.createPrefetchingTupleReader(TupleConnectorFactory.fINSTANCE.createTupleReader(), 2) };
+		for (TupleReader rangeReader : readers) {
+			rangeReader.setFile(file);
+			List<Collection<String>> rangeTuples = new ArrayList<Collection<String>>();
+			for (CoNLLDocumentRange range : ranges) {
+				rangeReader.setRange(range.getStart(), range.getEnd());
+				TupleRow row = null;
+				while ((row = rangeReader.nextRow()) != null) {
+					rangeTuples.add(row.toTuple());
+				}
+				rangeReader.close();
+			}
+			assertEquals(tuples, rangeTuples);
+		}
+	}
+
+	/**
+	 * Checks the statistics collected while reading the whole file and while
+	 * streaming it.
+	 */
+	public void testStatistics() throws Exception {
+		File file = new File(this.testFolder.toString() + "/" + "testStatistics.tab");
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("# comment\n1\tH\u00E4user\t_\n2\tx\t_\n\n1\tyy\n\n\n1\tz\tabcdef");
+		writer.close();
+
+		TupleReader[] readers = { TupleConnectorFactory.fINSTANCE.createTupleReader(), TupleConnectorFactory.fINSTANCE.createMappedTupleReader() };
+		for (TupleReader reader : readers) {
+			reader.setFile(file);
+			reader.readFile();
+			TupleStatistics statistics = reader.getStatistics();
+			for (int i = 0; i < 2; i++) {
+				assertEquals(8, statistics.getNumOfRows());
+				assertEquals(4, statistics.getNumOfTokens());
+				assertEquals(4, statistics.getNumOfSentences());
+				assertEquals(2, statistics.getMaxSentenceLength());
+				assertEquals(3, statistics.getNumOfFields());
+				assertEquals(9, statistics.getMaxFieldWidth(0));
+				assertEquals(9, statistics.getMaxFieldWidth());
+				assertEquals(6, statistics.getMaxFieldWidth(2));
+				assertEquals(9 + 4, statistics.getNumOfChars(0));
+				assertEquals(6 + 1 + 2 + 1, statistics.getNumOfChars(1));
+				assertEquals((int) reader.characterSize(), statistics.getNumOfChars());
+				assertEquals(statistics.getNumOfChars(), reader.getNumOfChars());
+				assertEquals(statistics.getNumOfChars(2), reader.getNumOfChars(2));
+
+				// the statistics are collected again while streaming
+				while (reader.getSentence() != null)
+					;
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Checks that the configured encoding is used for reading, also when
+	 * multibyte characters and line breaks cross the internal buffers.
+	 */
+	public void testReadEncoding() throws Exception {
+		StringBuilder content = new StringBuilder();
+		List<Collection<String>> expected = new ArrayList<Collection<String>>();
+		for (int i = 0; i < 20000; i++) {
+			Collection<String> tuple = new Vector<String>();
+			tuple.add(Integer.toString(i));
+			tuple.add("Stra\u00DFe" + i);
+			tuple.add("\u00E9t\u00E9");
+			expected.add(tuple);
+			content.append(i).append("\tStra\u00DFe").append(i).append("\t\u00E9t\u00E9").append((i % 2 == 0) ? "\r\n" : "\n");
+		}
+		String[] encodings = { "ISO-8859-1", "UTF-8", "UTF-16LE" };
+		for (String encoding : encodings) {
+			File file = new File(this.testFolder.toString() + "/" + "testReadEncoding_" + encoding + ".tab");
+			file.getParentFile().mkdirs();
+			Writer writer = new OutputStreamWriter(new FileOutputStream(file), encoding);
+			// there is no BOM in ISO-8859-1
+			writer.write((encoding.startsWith("UTF") ? "\uFEFF" : "") + content);
+			writer.close();
+
+			TupleReader[] readers = { TupleConnectorFactory.fINSTANCE.createTupleReader(), TupleConnectorFactory.fINSTANCE.createMappedTupleReader() };
+			for (TupleReader reader : readers) {
+				reader.setFile(file);
+				reader.setEncoding(encoding);
+				reader.readFile();
+				assertEquals(encoding, expected, new ArrayList<Collection<String>>(reader.getTuples()));
+			}
+		}
+	}
+
+	/**
+	 * Checks that compressed files are decompressed while reading. The bgzip
+	 * file consists of several members, which are decompressed in parallel.
+	 */
+	public void testReadCompressed() throws Exception {
+		StringBuilder content = new StringBuilder();
+		List<Collection<String>> expected = new ArrayList<Collection<String>>();
+		for (int i = 0; i < 20000; i++) {
+			Collection<String> tuple = new Vector<String>();
+			tuple.add(Integer.toString(i));
+			tuple.add("Stra\u00DFe" + i);
+			expected.add(tuple);
+			content.append(i).append("\tStra\u00DFe").append(i).append("\n");
+		}
+		byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+
+		File gzipFile = new File(this.testFolder.toString() + "/" + "testReadCompressed.tab.gz");
+		gzipFile.getParentFile().mkdirs();
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile));
+		out.write(bytes);
+		out.close();
+
+		File bgzipFile = new File(this.testFolder.toString() + "/" + "testReadCompressed.bgzip.tab.gz");
+		out = new FileOutputStream(bgzipFile);
+		for (int start = 0; start < bytes.length; start += 10000) {
+			out.write(createBgzfMember(bytes, start, Math.min(bytes.length - start, 10000)));
+		}
+		// empty member marking the end of file
+		out.write(createBgzfMember(bytes, 0, 0));
+		out.close();
+
+		File bzip2File = new File(this.testFolder.toString() + "/" + "testReadCompressed.tab.bz2");
+		out = new BZip2CompressorOutputStream(new FileOutputStream(bzip2File));
+		out.write(bytes);
+		out.close();
+
+		File[] files = { gzipFile, bgzipFile, bzip2File };
+		for (File file : files) {
+			TupleReader[] readers = { TupleConnectorFactory.fINSTANCE.createTupleReader(), TupleConnectorFactory.fINSTANCE.createMappedTupleReader() };
+			for (TupleReader reader : readers) {
+				reader.setFile(file);
+				reader.readFile();
+				assertEquals(file.getName(), expected, new ArrayList<Collection<String>>(reader.getTuples()));
+			}
+		}
+	}
+
+	/**
+	 * Returns a gzip member in the format written by bgzip, which stores the
+	 * size of the member in the extra field.
+	 */
+	private static byte[] createBgzfMember(byte[] bytes, int offset, int length) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(bytes, offset, length);
+		deflater.finish();
+		ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		while (!deflater.finished()) {
+			deflated.write(buffer, 0, deflater.deflate(buffer));
+		}
+		deflater.end();
+		CRC32 crc = new CRC32();
+		crc.update(bytes, offset, length);
+		int blockSize = 18 + deflated.size() + 8 - 1;
+
+		ByteArrayOutputStream member = new ByteArrayOutputStream();
+		byte[] header = { 0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0, (byte) blockSize, (byte) (blockSize >> 8) };
+		member.write(header, 0, header.length);
+		member.write(deflated.toByteArray(), 0, deflated.size());
+		long[] trailer = { crc.getValue(), length };
+		for (long value : trailer) {
+			for (int i = 0; i < 4; i++) {
+				member.write((int) (value >> (8 * i)));
+			}
+		}
+		return (member.toByteArray());
+	}
+
 	public void testPerformance() throws Exception {
 		Long timeToRead = null;
 		Long timeToWrite = null;